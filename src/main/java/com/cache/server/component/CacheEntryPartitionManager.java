@@ -0,0 +1,164 @@
+package com.cache.server.component;
+
+import com.cache.server.config.CacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains the daily partitions of {@code cache_entry} when it is partitioned by {@code expired}.
+ *
+ * <p>This component is activated only when the property {@code cache.db.partitioning.enable=true}.
+ * Every {@code cache.db.partitioning.period} minutes it creates the partitions for the next
+ * {@code cache.db.partitioning.premake-days} days and drops the partitions whose rows have all expired,
+ * so expiry costs one {@code DROP TABLE} per day instead of a delete per row. The matching entries of the
+ * in-memory cache expire on their own timers.</p>
+ *
+ * <p>A new partition is created as a plain table, filled with its rows from the default partition, if any,
+ * and then attached. The default partition also receives the rows of days without a partition, such as
+ * the days already dropped; its expired rows are deleted in chunks of {@code cache.db.scheduled.chunk-size}.
+ * Only one node maintains the partitions at a time.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cache.db.partitioning.enable", havingValue = "true")
+public class CacheEntryPartitionManager {
+
+    /**
+     * Advisory lock key, shared by all nodes.
+     */
+    private static final long PARTITIONING_LOCK = 0x63616368655f7074L;
+    private static final String PARTITION_PREFIX = "cache_entry_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final String SELECT_PARTITIONS = """
+            SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'cache_entry'::regclass
+            """;
+    private static final String DELETE_EXPIRED_DEFAULT = """
+            DELETE FROM cache_entry_default WHERE ctid IN (
+                SELECT ctid FROM cache_entry_default WHERE expired <= ? LIMIT ?
+            )
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int premakeDays;
+    private final int chunkSize;
+
+    public CacheEntryPartitionManager(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                      CacheProperties cacheProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.premakeDays = cacheProperties.getDb().getPartitioning().getPremakeDays();
+        this.chunkSize = cacheProperties.getDb().getScheduled().getChunkSize();
+    }
+
+    /**
+     * Creates the missing partitions, drops the expired ones and purges the default partition,
+     * each step in its own transaction.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${cache.db.partitioning.period}", timeUnit = TimeUnit.MINUTES)
+    public void maintainPartitions() {
+        var today = LocalDate.now();
+        try {
+            for (int i = 0; i <= premakeDays; i++) {
+                var day = today.plusDays(i);
+                if (!inTransactionWithLock(() -> createPartition(day))) {
+                    log.debug("Partition maintenance is running on another node");
+                    return;
+                }
+            }
+            for (String partition : jdbcTemplate.queryForList(SELECT_PARTITIONS, String.class)) {
+                var day = partitionDay(partition);
+                if (day != null && !day.plusDays(1).isAfter(today)) {
+                    inTransactionWithLock(() -> dropPartition(partition));
+                }
+            }
+            purgeDefaultPartition();
+        } catch (Exception e) {
+            log.error("Error during partition maintenance", e);
+        }
+    }
+
+    /**
+     * Runs an action in a transaction holding the cluster-wide maintenance lock.
+     *
+     * @return {@code false} if another node holds the lock.
+     */
+    private boolean inTransactionWithLock(Runnable action) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, PARTITIONING_LOCK))) {
+                return false;
+            }
+            action.run();
+            return true;
+        }));
+    }
+
+    private void createPartition(LocalDate day) {
+        String partition = PARTITION_PREFIX + PARTITION_SUFFIX.format(day);
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition))) {
+            return;
+        }
+        var from = Timestamp.valueOf(day.atStartOfDay());
+        var to = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+        jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE cache_entry)");
+        int moved = jdbcTemplate.update("""
+                WITH moved AS (DELETE FROM cache_entry_default WHERE expired >= ? AND expired < ? RETURNING *)
+                INSERT INTO %s SELECT * FROM moved
+                """.formatted(partition), from, to);
+        jdbcTemplate.execute("ALTER TABLE cache_entry ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')"
+                .formatted(partition, from, to));
+        log.info("Partition {} created, {} rows moved from the default partition", partition, moved);
+    }
+
+    private void dropPartition(String partition) {
+        jdbcTemplate.execute("ALTER TABLE cache_entry DETACH PARTITION " + partition);
+        jdbcTemplate.execute("DROP TABLE " + partition);
+        log.info("Expired partition {} dropped", partition);
+    }
+
+    /**
+     * Deletes the expired rows of the default partition, one chunk per transaction.
+     */
+    private void purgeDefaultPartition() {
+        var now = Timestamp.valueOf(LocalDateTime.now());
+        var deleted = new int[1];
+        int total = 0;
+        do {
+            if (!inTransactionWithLock(() -> deleted[0] = jdbcTemplate.update(DELETE_EXPIRED_DEFAULT, now, chunkSize))) {
+                return;
+            }
+            total += deleted[0];
+        } while (deleted[0] == chunkSize);
+        if (total > 0) {
+            log.info("{} expired rows deleted from the default partition", total);
+        }
+    }
+
+    /**
+     * @return the day of a daily partition, or {@code null} for the default partition.
+     */
+    private static LocalDate partitionDay(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -1,77 +1,84 @@
 package com.cache.server.component;
 
-import com.cache.server.repository.CacheEntity;
+import com.cache.server.config.CacheProperties;
+import com.cache.server.dto.CacheEvictRequest;
+import com.cache.server.repository.CacheCleanupRepository;
 import com.cache.server.repository.CacheRepository;
-import jakarta.persistence.EntityManager;
-import lombok.RequiredArgsConstructor;
+import com.cache.server.service.CacheManager;
 import lombok.extern.slf4j.Slf4j;
-import org.hibernate.Session;
-import org.hibernate.query.Query;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Stream;
+import java.time.ZoneId;
+import java.util.List;
 
 /**
  * A scheduled component that cleans up expired entries from the database cache.
  *
  * <p>This cleaner is activated only when the property {@code cache.db.scheduled.enable=true}.
  * It runs periodically based on the cron expression defined in the property {@code cache.db.scheduled.cleaner-crone}.
- * The cleaner retrieves expired cache entries from the database and removes them from the in-memory cache.</p>
+ * Only one node of the cluster cleans the table at a time: the others skip the run while it holds the lock.
+ * The expired rows are deleted in chunks, and the keys of each chunk are evicted from the in-memory cache
+ * of this node and broadcast to the other nodes, together with the time each row expired: a node keeps
+ * a value that expires later, since it was written after the row expired.</p>
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 @ConditionalOnProperty(name = "cache.db.scheduled.enable", havingValue = "true")
 public class DataBaseCacheSelfCleaner {
 
-    private final EntityManager entityManager;
     private final CacheRepository cacheRepository;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public DataBaseCacheSelfCleaner(CacheRepository cacheRepository, CacheManager cacheManager,
+                                    PlatformTransactionManager transactionManager, CacheProperties cacheProperties) {
+        this.cacheRepository = cacheRepository;
+        this.cacheManager = cacheManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = cacheProperties.getDb().getScheduled().getChunkSize();
+    }
 
     /**
      * Scheduled method that cleans expired entries from the database cache.
      *
-     * <p>This method retrieves expired entries from the database using a Hibernate query and
-     * removes the corresponding entries from the in-memory cache. If an exception occurs during
-     * execution, it retries up to 5 times before giving up.</p>
+     * <p>Each chunk of at most {@code cache.db.scheduled.chunk-size} rows is deleted in its own transaction,
+     * which first takes the cluster-wide cleanup lock; if another node holds it, the run stops.
+     * The run continues until a chunk is not full. A failed run is retried by the next one.</p>
      *
-     * <p>It runs based on the cron expression specified in {@code cache.db.scheduled.cleaner-crone}.
-     * The method is transactional, ensuring proper handling of database operations.</p>
+     * <p>It runs based on the cron expression specified in {@code cache.db.scheduled.cleaner-crone}.</p>
      */
     @Scheduled(cron = "${cache.db.scheduled.cleaner-crone}")
-    @Transactional
     public void cleanExpiredCache() {
-        boolean retry;
-        int countRetry = 0;
-        do {
-            try {
-                log.info("Starting database cache cleanup process");
-                AtomicInteger counter = new AtomicInteger(0);
-                Session session = entityManager.unwrap(Session.class);
-                Query<CacheEntity> query = session.createQuery(
-                        "FROM CacheEntity c where c.expired <= :timestamp", CacheEntity.class
-                );
-                query.setParameter("timestamp", LocalDateTime.now());
-                try (Stream<CacheEntity> userStream = query.stream()) {
-                    userStream.forEach(o -> {
-                        cacheRepository.deleteByPrimaryCacheKeyAndSecondaryCacheKeyTransactional(
-                                o.getPrimaryCacheKey(), o.getSecondaryCacheKey()
-                        );
-                        counter.incrementAndGet();
-                    });
+        int removed = 0;
+        try {
+            List<CacheCleanupRepository.Key> keys;
+            do {
+                keys = transactionTemplate.execute(status -> cacheRepository.tryLockCleanup()
+                        ? cacheRepository.deleteExpired(LocalDateTime.now(), chunkSize)
+                        : null);
+                if (keys == null) {
+                    log.debug("Database cache cleanup is running on another node");
+                    break;
+                }
+                if (!keys.isEmpty()) {
+                    cacheManager.evictAndSynchronization(new CacheEvictRequest(keys.stream()
+                            .map(key -> new CacheEvictRequest.Key(key.primaryCacheKey(), key.secondaryCacheKey(),
+                                    key.expired().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()))
+                            .toList()));
                 }
-                session.close();
-                retry = false;
-                log.info("Database cache cleanup completed. Total records removed: {}", counter.get());
-            } catch (Exception e) {
-                log.error("Error during database cache cleanup attempt {}/5. Retrying...", countRetry, e);
-                retry = true;
-            }
-            countRetry++;
-        } while (retry && countRetry <= 5);
+                removed += keys.size();
+            } while (keys.size() == chunkSize);
+        } catch (Exception e) {
+            log.error("Error during database cache cleanup", e);
+        }
+        if (removed > 0) {
+            log.info("Database cache cleanup completed. Total records removed: {}", removed);
+        }
     }
 }
@@ -1,26 +1,39 @@
 package com.cache.server.component;
 
-import com.cache.server.repository.CacheEntity;
-import com.cache.server.repository.CacheRepository;
+import com.cache.server.config.CacheProperties;
 import com.cache.server.service.CacheProvider;
-import jakarta.persistence.EntityManager;
+import com.cache.server.service.CacheService;
+import com.cache.server.service.JsonValue;
+import com.cache.server.service.wal.WriteAheadLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.hibernate.Session;
-import org.hibernate.query.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.sql.Timestamp;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Component for initializing the in-memory cache with data from the database.
- * This class retrieves entities from the database, checks their expiration times,
- * and loads valid entities into the memory cache.
+ * The table is split into id ranges that are loaded in parallel by several workers;
+ * only the non-expired rows are read, as plain columns rather than managed entities.
  * If an error occurs during initialization, it will retry up to 5 times.
  */
 @Slf4j
@@ -28,47 +41,74 @@ import java.util.stream.Stream;
 @RequiredArgsConstructor
 public class MemoryCacheInitialization {
 
-    private final EntityManager entityManager;
+    private static final String SELECT_ID_RANGE = "SELECT MIN(id), MAX(id) FROM cache_entry WHERE expired > ? AND created >= ?";
+    private static final String SELECT_PARTITION = """
+            SELECT primary_cache_key, secondary_cache_key, expired, cache_value
+            FROM cache_entry
+            WHERE id BETWEEN ? AND ? AND expired > ? AND created >= ?
+            """;
+    private static final String SELECT_LIVE_KEYS = """
+            SELECT primary_cache_key, secondary_cache_key
+            FROM cache_entry
+            WHERE expired > ? AND (primary_cache_key, secondary_cache_key) IN (%s)
+            """;
+    private static final int PARTITIONS_PER_WORKER = 4;
+    /**
+     * Rows written up to this long before the snapshot are read again, to cover clock differences between the nodes.
+     */
+    private static final Duration SNAPSHOT_CLOCK_MARGIN = Duration.ofMinutes(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
     private final CacheProvider<Object> memoryCache;
-    private final CacheRepository cacheRepository;
+    private final CacheProperties cacheProperties;
+    private final ObjectMapper objectMapper;
+    private final Optional<WriteAheadLog> writeAheadLog;
+    private final Optional<MemoryCacheSnapshot> snapshot;
 
     /**
-     * Initializes the in-memory cache by loading entities from the database.
+     * Initializes the in-memory cache by loading entities from the database,
+     * or by replaying the write-ahead log if it is enabled. If snapshots are enabled, the snapshot
+     * is loaded first and only the rows written since it was taken are read from the database.
      * The method is scheduled to run once after a 1-second delay upon application startup.
      * <p>
-     * It processes all {@link CacheEntity} objects in the database, calculates their
-     * remaining expiration time, and loads valid entities into the cache.
-     * Entities that have already expired are skipped.
+     * The id range of the non-expired rows is split into {@code cache.memory.warm-up.parallelism} times 4
+     * partitions, which are read by {@code cache.memory.warm-up.parallelism} workers with the
+     * {@code cache.memory.warm-up.fetch-size} fetch size. Each loaded partition is logged with the total
+     * number of entries loaded so far.
      * <p>
      * If an error occurs, the initialization process retries up to 5 times.
-     * The number of successfully loaded and skipped (expired) entities is logged.
      */
     @Scheduled(initialDelay = 1000)
-    @Transactional
     public void init() {
+        if (writeAheadLog.isPresent()) {
+            replay(writeAheadLog.get());
+        } else {
+            loadFromDataBase();
+        }
+        snapshot.ifPresent(MemoryCacheSnapshot::start);
+    }
+
+    private void loadFromDataBase() {
+        var restored = snapshot.map(MemoryCacheSnapshot::load).orElse(null);
+        var changedSince = restored != null
+                ? Timestamp.valueOf(restored.time().minus(SNAPSHOT_CLOCK_MARGIN))
+                : new Timestamp(0L);
+        var unchecked = restored != null ? restored.keys() : List.<CacheService.Key>of();
         boolean retry;
         int countRetry = 0;
         do {
             try {
                 log.info("Initializing cache {}", countRetry > 0 ? "Retrying " + countRetry : "");
-                cacheRepository.deleteDuplicateEntries();
-                AtomicInteger loadCount = new AtomicInteger(0);
-                AtomicInteger expiredCount = new AtomicInteger(0);
-                Session session = entityManager.unwrap(Session.class);
-                Query<CacheEntity> query = session.createQuery("FROM CacheEntity", CacheEntity.class);
-                try (Stream<CacheEntity> userStream = query.stream()) {
-                    userStream.forEach(o -> {
-                        var expiredSeconds = Duration.between(LocalDateTime.now(), o.getExpired()).toSeconds();
-                        if (expiredSeconds > 1) {
-                            memoryCache.set(o.getPrimaryCacheKey(), o.getSecondaryCacheKey(), o.getCacheValue(), expiredSeconds);
-                            loadCount.incrementAndGet();
-                        } else {
-                            expiredCount.incrementAndGet();
-                        }
-                    });
+                long start = System.currentTimeMillis();
+                if (!unchecked.isEmpty()) {
+                    long removed = removeDeleted(unchecked);
+                    log.info("Removed {} of {} keys restored from the snapshot that are no longer in the database",
+                            removed, unchecked.size());
+                    unchecked = List.of();
                 }
-                session.close();
-                log.info("Cache initialization completed. Loaded {}, expired {}", loadCount.get(), expiredCount.get());
+                long loadCount = load(changedSince);
+                log.info("Cache initialization completed. Loaded {} in {} ms", loadCount, System.currentTimeMillis() - start);
                 retry = false;
             } catch (Exception e) {
                 log.error("Error initializing cache", e);
@@ -77,4 +117,148 @@ public class MemoryCacheInitialization {
             countRetry++;
         } while (retry && countRetry <= 5);
     }
+
+    /**
+     * Loads the non-expired rows in parallel, one read-only transaction per partition.
+     *
+     * @param changedSince the rows written before this time are skipped.
+     * @return the number of loaded entries.
+     */
+    private long load(Timestamp changedSince) throws Exception {
+        var warmUp = cacheProperties.getMemory().getWarmUp();
+        var now = Timestamp.valueOf(LocalDateTime.now());
+        var idRange = jdbcTemplate.queryForObject(SELECT_ID_RANGE,
+                (rs, rowNum) -> rs.getObject(1) == null ? null : new long[]{rs.getLong(1), rs.getLong(2)}, now, changedSince);
+        if (idRange == null) {
+            return 0;
+        }
+        int workers = warmUp.getParallelism();
+        long span = (idRange[1] - idRange[0]) / ((long) workers * PARTITIONS_PER_WORKER) + 1;
+        List<long[]> partitions = new ArrayList<>();
+        for (long from = idRange[0]; from <= idRange[1]; from += span) {
+            partitions.add(new long[]{from, Math.min(from + span - 1, idRange[1])});
+        }
+        var transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        AtomicLong loadCount = new AtomicLong();
+        AtomicInteger loadedPartitions = new AtomicInteger();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workers,
+                r -> new Thread(r, "cache-warm-up-" + threadCount.incrementAndGet()));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long[] partition : partitions) {
+                futures.add(executor.submit(() -> {
+                    transactionTemplate.executeWithoutResult(status ->
+                            loadPartition(partition[0], partition[1], now, changedSince, warmUp.getFetchSize(), loadCount));
+                    log.info("Cache warm-up: {}/{} partitions, {} entries loaded",
+                            loadedPartitions.incrementAndGet(), partitions.size(), loadCount.get());
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return loadCount.get();
+    }
+
+    /**
+     * Removes the restored keys that have no live row in the database any more, because they were removed
+     * or expired after the snapshot was taken. Only the keys are read, {@code cache.memory.warm-up.fetch-size}
+     * keys per query.
+     *
+     * @param keys the keys restored from the snapshot.
+     * @return the number of removed keys.
+     */
+    private long removeDeleted(List<CacheService.Key> keys) {
+        int chunkSize = cacheProperties.getMemory().getWarmUp().getFetchSize();
+        var now = Timestamp.valueOf(LocalDateTime.now());
+        long removed = 0;
+        for (int from = 0; from < keys.size(); from += chunkSize) {
+            var chunk = keys.subList(from, Math.min(from + chunkSize, keys.size()));
+            var args = new ArrayList<Object>(chunk.size() * 2 + 1);
+            args.add(now);
+            chunk.forEach(key -> {
+                args.add(key.key1());
+                args.add(key.key2());
+            });
+            var sql = SELECT_LIVE_KEYS.formatted(String.join(", ", Collections.nCopies(chunk.size(), "(?, ?)")));
+            var live = new HashSet<CacheService.Key>(jdbcTemplate.query(sql,
+                    (rs, rowNum) -> new CacheService.Key(rs.getString(1), rs.getString(2)), args.toArray()));
+            for (var key : chunk) {
+                if (!live.contains(key)) {
+                    memoryCache.remove(key.key1(), key.key2());
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    private void loadPartition(long fromId, long toId, Timestamp now, Timestamp changedSince, int fetchSize,
+                               AtomicLong loadCount) {
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(SELECT_PARTITION);
+            statement.setFetchSize(fetchSize);
+            statement.setLong(1, fromId);
+            statement.setLong(2, toId);
+            statement.setTimestamp(3, now);
+            statement.setTimestamp(4, changedSince);
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            var expiredSeconds = Duration.between(LocalDateTime.now(), rs.getTimestamp(3).toLocalDateTime()).toSeconds();
+            if (expiredSeconds > 1) {
+                memoryCache.set(rs.getString(1), rs.getString(2), toCachedValue(rs.getString(4)), expiredSeconds);
+                loadCount.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Replays the write-ahead log into the in-memory cache. Later entries of a key overwrite the earlier
+     * ones, and an expired entry removes the key, so the cache ends up in the state of the last write.
+     */
+    private void replay(WriteAheadLog writeAheadLog) {
+        log.info("Initializing cache from the write-ahead log");
+        AtomicInteger loadCount = new AtomicInteger(0);
+        AtomicInteger expiredCount = new AtomicInteger(0);
+        try {
+            writeAheadLog.replay(entry -> {
+                long expiredSeconds = (entry.expiresAt() - System.currentTimeMillis()) / 1000L;
+                if (expiredSeconds > 1) {
+                    memoryCache.set(entry.key1(), entry.key2(), fromLogValue(entry.value()), expiredSeconds);
+                    loadCount.incrementAndGet();
+                } else {
+                    memoryCache.remove(entry.key1(), entry.key2());
+                    expiredCount.incrementAndGet();
+                }
+            });
+            log.info("Cache initialization completed. Loaded {}, expired {}", loadCount.get(), expiredCount.get());
+        } catch (IOException e) {
+            log.error("Error replaying the write-ahead log", e);
+        }
+    }
+
+    private Object fromLogValue(byte[] value) {
+        if (cacheProperties.getMemory().getValueFormat() == CacheProperties.ValueFormat.JSON) {
+            return JsonValue.wrap(value);
+        }
+        try {
+            return objectMapper.readValue(value, Object.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Logged value cannot be deserialized", e);
+        }
+    }
+
+    /**
+     * Restores an encoded, possibly compressed, value when the memory cache keeps values as JSON.
+     */
+    private Object toCachedValue(String value) {
+        if (value != null && cacheProperties.getMemory().getValueFormat() == CacheProperties.ValueFormat.JSON) {
+            return JsonValue.fromText(value);
+        }
+        return value;
+    }
 }
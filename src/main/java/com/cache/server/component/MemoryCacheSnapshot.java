@@ -0,0 +1,204 @@
+package com.cache.server.component;
+
+import com.cache.server.config.CacheProperties;
+import com.cache.server.service.CacheProvider;
+import com.cache.server.service.CacheService;
+import com.cache.server.service.MemoryCache;
+import com.cache.server.service.ValueCodec;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Saves the contents of the memory cache to a local binary file periodically and on shutdown,
+ * and loads it back on startup, so that {@link MemoryCacheInitialization} only has to read the rows
+ * changed since the snapshot from the database.
+ *
+ * <p>The file starts with a magic number and the wall-clock time of the snapshot, followed by
+ * length-prefixed records (primary key, secondary key, remaining lifetime in milliseconds, encoded value)
+ * and an end marker. The records are applied only once the end marker has been read, so a truncated or corrupt
+ * snapshot loads nothing. The file is written to a temporary file, forced to disk and moved into place, so a crash
+ * during a save leaves the previous snapshot intact.</p>
+ *
+ * <p>The restored keys are returned, so that the keys removed from the database after the snapshot was taken
+ * can be removed again. The snapshot is only used if it is not older than {@code cache.memory.snapshot.max-age}.
+ * Snapshots are taken only after the cache has been initialized, so that a save cannot replace a full snapshot
+ * with a partial one.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cache.memory.snapshot.enable", havingValue = "true")
+public class MemoryCacheSnapshot {
+
+    private static final int MAGIC = 0x4d435331;
+    private static final byte ENTRY = 1;
+    private static final byte END = 0;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final CacheProvider<Object> memoryCache;
+    private final ValueCodec<Object> valueCodec;
+    private final Path file;
+    private final Duration maxAge;
+    private volatile boolean started;
+
+    public MemoryCacheSnapshot(CacheProvider<Object> memoryCache, ValueCodec<Object> valueCodec,
+                               CacheProperties cacheProperties) {
+        var properties = cacheProperties.getMemory().getSnapshot();
+        this.memoryCache = memoryCache;
+        this.valueCodec = valueCodec;
+        this.file = Path.of(properties.getFile());
+        this.maxAge = Duration.ofSeconds(properties.getMaxAge());
+    }
+
+    /**
+     * Loads the snapshot into the memory cache. Entries whose remaining lifetime has run out since the
+     * snapshot was taken are skipped.
+     *
+     * @return the time of the snapshot and the restored keys, or {@code null} if there is no usable snapshot.
+     */
+    public Restored load() {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                log.warn("Ignoring snapshot {}: unknown format", file);
+                return null;
+            }
+            long snapshotTime = in.readLong();
+            long age = System.currentTimeMillis() - snapshotTime;
+            if (age > maxAge.toMillis()) {
+                log.info("Ignoring snapshot {}: taken {} seconds ago", file, age / 1000);
+                return null;
+            }
+            var entries = new ArrayList<CacheProvider.Entry<Object>>();
+            int expiredCount = 0;
+            byte marker;
+            while ((marker = in.readByte()) == ENTRY) {
+                String key1 = in.readUTF();
+                String key2 = in.readUTF();
+                long remainingMillis = in.readLong() - (System.currentTimeMillis() - snapshotTime);
+                byte[] value = new byte[in.readInt()];
+                in.readFully(value);
+                long expiredSeconds = remainingMillis / 1000;
+                if (expiredSeconds > 1) {
+                    entries.add(new CacheProvider.Entry<>(key1, key2, valueCodec.decode(value), expiredSeconds));
+                } else {
+                    expiredCount++;
+                }
+            }
+            if (marker != END) {
+                log.warn("Ignoring snapshot {}: unknown record type {}", file, marker);
+                return null;
+            }
+            var keys = new ArrayList<CacheService.Key>(entries.size());
+            for (var entry : entries) {
+                memoryCache.set(entry.key1(), entry.key2(), entry.value(), entry.lifeTime());
+                keys.add(new CacheService.Key(entry.key1(), entry.key2()));
+            }
+            log.info("Snapshot {} loaded. Loaded {}, expired {}", file, keys.size(), expiredCount);
+            return new Restored(LocalDateTime.ofInstant(Instant.ofEpochMilli(snapshotTime), ZoneId.systemDefault()), keys);
+        } catch (NoSuchFileException e) {
+            log.info("No snapshot found at {}", file);
+            return null;
+        } catch (IOException | RuntimeException e) {
+            log.error("Ignoring snapshot {}: it cannot be read", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * The result of loading a snapshot.
+     *
+     * @param time the time the snapshot was taken.
+     * @param keys the keys restored into the memory cache.
+     */
+    public record Restored(LocalDateTime time, List<CacheService.Key> keys) {
+    }
+
+    /**
+     * Allows the snapshots to be taken. Called once the cache has been initialized.
+     */
+    public void start() {
+        started = true;
+    }
+
+    /**
+     * Saves the contents of the memory cache, every {@code cache.memory.snapshot.period} seconds.
+     */
+    @Scheduled(fixedDelayString = "${cache.memory.snapshot.period}",
+            initialDelayString = "${cache.memory.snapshot.period}", timeUnit = TimeUnit.SECONDS)
+    public synchronized void save() {
+        if (!started) {
+            return;
+        }
+        if (!(memoryCache instanceof MemoryCache<Object> heapCache)) {
+            log.warn("Snapshots are only supported for the heap storage");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        var temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        AtomicInteger count = new AtomicInteger();
+        try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+             var out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeLong(start);
+            heapCache.forEach((key1, key2, value, remainingMillis) -> {
+                try {
+                    byte[] bytes = valueCodec.encode(value);
+                    out.writeByte(ENTRY);
+                    out.writeUTF(key1);
+                    out.writeUTF(key2);
+                    out.writeLong(remainingMillis);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                    count.incrementAndGet();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.writeByte(END);
+            out.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            log.error("Error saving snapshot {}", file, e);
+            return;
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Snapshot {} saved: {} entries in {} ms", file, count.get(), System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            log.error("Error saving snapshot {}", file, e);
+        }
+    }
+
+    /**
+     * Saves a final snapshot on shutdown.
+     */
+    @PreDestroy
+    public void close() {
+        save();
+    }
+}
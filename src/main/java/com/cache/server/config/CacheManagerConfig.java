@@ -1,33 +1,117 @@
 package com.cache.server.config;
 
 import com.cache.server.service.CacheProvider;
+import com.cache.server.service.JsonValue;
 import com.cache.server.service.MemoryCache;
+import com.cache.server.service.OffHeapMemoryCache;
+import com.cache.server.service.SpillStore;
+import com.cache.server.service.ValueCodec;
+import com.cache.server.service.wal.WriteAheadLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
 @Configuration
 @RequiredArgsConstructor
 public class CacheManagerConfig {
 
     private final CacheProperties cacheProperties;
+    private final ObjectMapper objectMapper;
 
     @Bean
-    public CacheProvider<Object> memoryCache() {
+    public CacheProvider<Object> memoryCache(Optional<SpillStore> spillStore) {
+        if (cacheProperties.getMemory().getStorage() == CacheProperties.Storage.OFF_HEAP) {
+            return offHeapMemoryCache();
+        }
         MemoryCache<Object> memoryCache = new MemoryCache<>();
         var propertiesMemory = cacheProperties.getMemory();
         if (propertiesMemory.getCapacity() != null) {
             memoryCache.setCapacity(propertiesMemory.getCapacity());
         }
-        if (propertiesMemory.getThresholdGC() != null) {
-            memoryCache.setThresholdGC(propertiesMemory.getThresholdGC());
+        if (propertiesMemory.getEvictionPolicy() != null) {
+            memoryCache.setEvictionPolicy(propertiesMemory.getEvictionPolicy().create());
+        }
+        if (cacheProperties.getDefaultLifeTime() != null) {
+            memoryCache.setLifeTime(cacheProperties.getDefaultLifeTime());
+        }
+        spillStore.ifPresent(store -> memoryCache.setSpillStore(store, valueCodec()));
+        memoryCache.selfCleanerStart(
+                propertiesMemory.getSelfCleaner().getInitialDelay(),
+                propertiesMemory.getSelfCleaner().getPeriod()
+        );
+        return memoryCache;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "cache.wal.enable", havingValue = "true")
+    public WriteAheadLog writeAheadLog() throws IOException {
+        var propertiesWal = cacheProperties.getWal();
+        return new WriteAheadLog(
+                Path.of(propertiesWal.getDirectory()),
+                propertiesWal.getSegmentSize() * 1024L * 1024L,
+                propertiesWal.getCompactionThreshold()
+        );
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "cache.memory.spill.enable", havingValue = "true")
+    public SpillStore spillStore() throws IOException {
+        var propertiesSpill = cacheProperties.getMemory().getSpill();
+        return new SpillStore(Path.of(propertiesSpill.getFile()), propertiesSpill.getCapacity() * 1024L * 1024L);
+    }
+
+    /**
+     * Codec of the values written to local files (the spill store and the snapshot):
+     * values kept as JSON are written as they are, other values are encoded to JSON.
+     */
+    @Bean
+    public ValueCodec<Object> valueCodec() {
+        if (cacheProperties.getMemory().getValueFormat() == CacheProperties.ValueFormat.JSON) {
+            return new ValueCodec<>() {
+                @Override
+                public byte[] encode(Object value) {
+                    return ((JsonValue) value).getBytes();
+                }
+
+                @Override
+                public Object decode(byte[] bytes) {
+                    return JsonValue.wrap(bytes);
+                }
+            };
         }
-        if (propertiesMemory.getThresholdPermissionActive() != null) {
-            memoryCache.setThresholdPermissionActive(propertiesMemory.getThresholdPermissionActive());
+        return new ValueCodec<>() {
+            @Override
+            public byte[] encode(Object value) {
+                return JsonValue.encode(objectMapper, value).getBytes();
+            }
+
+            @Override
+            public Object decode(byte[] bytes) {
+                try {
+                    return objectMapper.readValue(bytes, Object.class);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Stored value cannot be deserialized", e);
+                }
+            }
+        };
+    }
+
+    private CacheProvider<Object> offHeapMemoryCache() {
+        OffHeapMemoryCache<Object> memoryCache = new OffHeapMemoryCache<>(objectMapper, Object.class);
+        var propertiesMemory = cacheProperties.getMemory();
+        if (propertiesMemory.getCapacity() != null) {
+            memoryCache.setCapacity(propertiesMemory.getCapacity());
         }
         if (cacheProperties.getDefaultLifeTime() != null) {
             memoryCache.setLifeTime(cacheProperties.getDefaultLifeTime());
         }
+        memoryCache.setEncodedValues(propertiesMemory.getValueFormat() == CacheProperties.ValueFormat.JSON);
         memoryCache.selfCleanerStart(
                 propertiesMemory.getSelfCleaner().getInitialDelay(),
                 propertiesMemory.getSelfCleaner().getPeriod()
@@ -1,5 +1,6 @@
 package com.cache.server.config;
 
+import com.cache.server.service.eviction.EvictionPolicyType;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
@@ -11,30 +12,225 @@ public class CacheProperties {
 
     private Long defaultLifeTime;
     private Memory memory = new Memory();
+    private Compression compression = new Compression();
+    private Wal wal = new Wal();
     private DB db = new DB();
+    private ReadThrough readThrough = new ReadThrough();
+    private NegativeCache negativeCache = new NegativeCache();
+    private Bulk bulk = new Bulk();
+    private Resp resp = new Resp();
 
     @Data
     public static class Memory {
         private Integer capacity;
-        private Integer thresholdGC;
-        private Integer thresholdPermissionActive;
+        private Storage storage = Storage.HEAP;
+        private ValueFormat valueFormat = ValueFormat.OBJECT;
+        private EvictionPolicyType evictionPolicy;
         private SelfCleaner selfCleaner = new SelfCleaner();
+        private Spill spill = new Spill();
+        private WarmUp warmUp = new WarmUp();
+        private Snapshot snapshot = new Snapshot();
+    }
+
+    public enum Storage {
+        HEAP,
+        OFF_HEAP
+    }
+
+    /**
+     * Form in which the memory cache keeps the values.
+     */
+    public enum ValueFormat {
+        /**
+         * The deserialized object tree, encoded again on every read.
+         */
+        OBJECT,
+        /**
+         * The encoded JSON document, written to the responses as it is.
+         */
+        JSON
     }
 
     @Data
     public static class SelfCleaner {
-        private Long initialDelay = 3600L;
-        private Long period = 3600L;
+        private Long initialDelay = 1L;
+        private Long period = 1L;
+    }
+
+    /**
+     * Loading of the memory cache from the database on startup.
+     */
+    @Data
+    public static class WarmUp {
+        /**
+         * Number of workers reading the table in parallel.
+         */
+        private int parallelism = 4;
+        /**
+         * Number of rows fetched from the database per round trip.
+         */
+        private int fetchSize = 1000;
+    }
+
+    /**
+     * Local binary file with the contents of the memory cache, loaded on startup instead of the whole table.
+     */
+    @Data
+    public static class Snapshot {
+        private boolean enable;
+        private String file = "memory-cache.snapshot";
+        /**
+         * Time between snapshots, in seconds.
+         */
+        private long period = 300;
+        /**
+         * Maximum age of a snapshot that is loaded on startup, in seconds.
+         */
+        private long maxAge = 3600;
+    }
+
+    /**
+     * Memory-mapped local file that keeps the entries evicted from the heap storage.
+     */
+    @Data
+    public static class Spill {
+        private boolean enable;
+        private String file = "memory-cache.spill";
+        /**
+         * Size of the file, in mBytes.
+         */
+        private int capacity = 1024;
+    }
+
+    /**
+     * Compression of values kept as JSON ({@code cache.memory.value-format=json}).
+     */
+    @Data
+    public static class Compression {
+        private boolean enable;
+        /**
+         * Minimum size of the encoded value, in bytes, from which it is compressed.
+         */
+        private int threshold = 1024;
+    }
+
+    /**
+     * Reading the values missing from the memory cache from the database.
+     */
+    @Data
+    public static class ReadThrough {
+        private boolean enable;
+    }
+
+    /**
+     * Short-lived record of the keys missing from the database, checked before reading through.
+     */
+    @Data
+    public static class NegativeCache {
+        private boolean enable;
+        /**
+         * Maximum size of the recorded keys, in mBytes.
+         */
+        private int capacity = 16;
+        /**
+         * Time a missing key is remembered, in seconds.
+         */
+        private long lifeTime = 5;
+    }
+
+    /**
+     * Streaming bulk load of entries.
+     */
+    @Data
+    public static class Bulk {
+        /**
+         * Number of entries stored, persisted and replicated together, and acknowledged by one response line.
+         */
+        private int batchSize = 1000;
+    }
+
+    /**
+     * TCP listener speaking a subset of the Redis protocol.
+     */
+    @Data
+    public static class Resp {
+        private boolean enable;
+        private String host = "0.0.0.0";
+        private int port = 6379;
+        /**
+         * Separator of the primary and the secondary key in a Redis key; the first occurrence splits the key.
+         */
+        private String keySeparator = ":";
+    }
+
+    /**
+     * Local write-ahead log used instead of the database to make writes durable.
+     */
+    @Data
+    public static class Wal {
+        private boolean enable;
+        private String directory = "wal";
+        /**
+         * Size of a log segment, in mBytes.
+         */
+        private int segmentSize = 64;
+        /**
+         * Number of sealed segments that triggers a compaction.
+         */
+        private int compactionThreshold = 4;
     }
 
     @Data
     public static class DB {
         private Scheduled scheduled = new Scheduled();
+        private WriteBehind writeBehind = new WriteBehind();
+        private Partitioning partitioning = new Partitioning();
+    }
+
+    /**
+     * Layout of {@code cache_entry} partitioned by day of {@code expired}, created by the {@code partitioned}
+     * Liquibase changeset. The expired rows are removed by dropping whole partitions.
+     */
+    @Data
+    public static class Partitioning {
+        private boolean enable;
+        /**
+         * Number of days ahead for which the partitions are created; must cover the longest lifetime.
+         */
+        private int premakeDays = 32;
+        /**
+         * Time between the partition maintenance runs, in minutes.
+         */
+        private long period = 60;
+    }
+
+    /**
+     * Buffering of the database writes, flushed as batch inserts.
+     */
+    @Data
+    public static class WriteBehind {
+        private boolean enable;
+        /**
+         * Maximum number of pending writes; writers wait while the buffer is full.
+         */
+        private int capacity = 10_000;
+        /**
+         * Number of pending writes that triggers a flush, and the size of a JDBC batch.
+         */
+        private int batchSize = 500;
+        /**
+         * Maximum time between flushes, in milliseconds.
+         */
+        private long flushInterval = 200;
     }
 
     @Data
     public static class Scheduled {
         private boolean enable;
+        /**
+         * Maximum number of expired rows deleted in one transaction.
+         */
+        private int chunkSize = 1000;
     }
 
 }
@@ -1,16 +1,24 @@
 package com.cache.server.config;
 
+import com.cache.server.dto.CacheEvictRequest;
 import com.cache.server.dto.CacheSetRequest;
+import com.cache.server.kafka.CacheEvictRequestDeserializer;
+import com.cache.server.kafka.CacheEvictRequestSerializer;
 import com.cache.server.kafka.CacheSetRequestDeserializer;
 import com.cache.server.kafka.CacheSetRequestSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -21,36 +29,88 @@ import java.util.Map;
 public class KafkaConfig {
 
     private final KafkaProperties kafkaProperties;
+    private final ObjectMapper objectMapper;
 
+    /**
+     * Records are keyed by the primary key, so that the values of a key stay ordered within a partition.
+     */
     @Bean
-    public ProducerFactory<CacheSetRequest, CacheSetRequest> producerFactory() {
-        Map<String, Object> configProps = new HashMap<>();
-        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaProperties.getBootstrapServers());
-        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, CacheSetRequestSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, CacheSetRequestSerializer.class);
-        return new DefaultKafkaProducerFactory<>(configProps);
+    public ProducerFactory<String, CacheSetRequest> producerFactory() {
+        return new DefaultKafkaProducerFactory<>(replicationProducerProps(),
+                new StringSerializer(), new CacheSetRequestSerializer(objectMapper));
     }
 
     @Bean
-    public KafkaTemplate<CacheSetRequest, CacheSetRequest> kafkaTemplate() {
+    public KafkaTemplate<String, CacheSetRequest> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
 
+    /**
+     * A record that cannot be deserialized does not fail the poll: it reaches the listener without a value
+     * and is skipped, see {@link ErrorHandlingDeserializer}.
+     */
     @Bean
-    public ConsumerFactory<String, String> consumerFactory() {
+    public ConsumerFactory<String, CacheSetRequest> consumerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaProperties.getBootstrapServers());
         configProps.put(ConsumerConfig.GROUP_ID_CONFIG, kafkaProperties.getGroupId());
-        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, CacheSetRequestDeserializer.class);
-        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, CacheSetRequestDeserializer.class);
-        return new DefaultKafkaConsumerFactory<>(configProps);
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, kafkaProperties.getConsumer().getMaxPollRecords());
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        return new DefaultKafkaConsumerFactory<>(configProps, new ErrorHandlingDeserializer<>(new StringDeserializer()),
+                new ErrorHandlingDeserializer<>(new CacheSetRequestDeserializer()));
     }
 
+    /**
+     * The polled records are handed to the listener as one batch, by {@code kafka.consumer.concurrency}
+     * consumers. The offsets are committed once the listener has returned, that is once the batch is applied;
+     * a failed batch is redelivered.
+     */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+    public ConcurrentKafkaListenerContainerFactory<String, CacheSetRequest> kafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, CacheSetRequest> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        factory.setBatchListener(true);
+        factory.setConcurrency(kafkaProperties.getConsumer().getConcurrency());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
         return factory;
     }
+
+    @Bean
+    public KafkaTemplate<String, CacheEvictRequest> evictionKafkaTemplate() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaProperties.getBootstrapServers());
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, CacheEvictRequestSerializer.class);
+        configProps.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, kafkaProperties.getProducer().getMaxBlockMs());
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(configProps));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, CacheEvictRequest> evictionKafkaListenerContainerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaProperties.getBootstrapServers());
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, kafkaProperties.getGroupId());
+        ConcurrentKafkaListenerContainerFactory<String, CacheEvictRequest> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(configProps,
+                new ErrorHandlingDeserializer<>(new StringDeserializer()),
+                new ErrorHandlingDeserializer<>(new CacheEvictRequestDeserializer())));
+        return factory;
+    }
+
+    /**
+     * Producer settings of the replication messages: records are batched per partition
+     * for up to {@code kafka.producer.linger-ms} and the batches are compressed.
+     */
+    private Map<String, Object> replicationProducerProps() {
+        var producer = kafkaProperties.getProducer();
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaProperties.getBootstrapServers());
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, producer.getLingerMs());
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, producer.getBatchSize());
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, producer.getCompressionType());
+        configProps.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, producer.getMaxBlockMs());
+        return configProps;
+    }
 }
@@ -12,4 +12,67 @@ public class KafkaProperties {
     private String bootstrapServers;
     private String groupId;
     private String topicName;
+    private String evictionTopicName;
+    private Producer producer = new Producer();
+    private Coalescing coalescing = new Coalescing();
+    private Consumer consumer = new Consumer();
+
+    /**
+     * Batching of the records by the producers of the replication messages.
+     */
+    @Data
+    public static class Producer {
+        /**
+         * How long a record waits for others to fill a batch, in milliseconds.
+         */
+        private int lingerMs = 20;
+        /**
+         * The maximum size of a batch of records sent to one partition, in bytes.
+         */
+        private int batchSize = 65_536;
+        /**
+         * The compression of the batches: none, gzip, snappy, lz4 or zstd.
+         */
+        private String compressionType = "lz4";
+        /**
+         * How long a send waits for the topic metadata or for buffer space, in milliseconds.
+         */
+        private long maxBlockMs = 60_000;
+    }
+
+    /**
+     * Consumption of the replicated updates, applied in batches of the polled records.
+     */
+    @Data
+    public static class Consumer {
+        /**
+         * The number of consumers of the topic; should match its number of partitions,
+         * a consumer without a partition stays idle.
+         */
+        private int concurrency = 1;
+        /**
+         * The maximum number of records applied as one batch.
+         */
+        private int maxPollRecords = 500;
+    }
+
+    /**
+     * Coalescing of the outgoing updates, see {@code ReplicationCoalescer}.
+     */
+    @Data
+    public static class Coalescing {
+        private boolean enable;
+        /**
+         * How long the updates are buffered before being sent, in milliseconds.
+         */
+        private long window = 50;
+        /**
+         * The number of buffered keys that triggers an early send.
+         */
+        private int maxBatch = 10_000;
+        /**
+         * The maximum number of buffered keys; writers of new keys wait while the buffer is full.
+         */
+        private int capacity = 100_000;
+    }
 }
@@ -0,0 +1,31 @@
+package com.cache.server.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Schema management when {@code cache_entry} is partitioned by {@code expired}.
+ *
+ * <p>The partitioned table is created by Liquibase and has no unique key on the cache keys, so Hibernate
+ * must not generate or update the schema from {@code CacheEntity}: its unique constraint cannot be added
+ * to a partitioned table. Activated by {@code cache.db.partitioning.enable=true}, which requires
+ * {@code spring.liquibase.enabled=true}.</p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "cache.db.partitioning.enable", havingValue = "true")
+public class PartitioningConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer liquibaseOwnedSchema(
+            @Value("${spring.liquibase.enabled:true}") boolean liquibaseEnabled) {
+        if (!liquibaseEnabled) {
+            throw new IllegalStateException(
+                    "cache.db.partitioning.enable=true requires spring.liquibase.enabled=true");
+        }
+        return properties -> properties.put(AvailableSettings.HBM2DDL_AUTO, "none");
+    }
+}
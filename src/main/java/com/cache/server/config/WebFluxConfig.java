@@ -0,0 +1,23 @@
+package com.cache.server.config;
+
+import com.cache.server.controller.CacheResponseWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.EncoderHttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebFluxConfig implements WebFluxConfigurer {
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        var jsonWriter = new EncoderHttpMessageWriter<>(new Jackson2JsonEncoder(objectMapper));
+        configurer.customCodecs().register(new CacheResponseWriter(jsonWriter));
+    }
+}
@@ -1,22 +1,33 @@
 package com.cache.server.controller;
 
+import com.cache.server.dto.CacheBulkResponse;
 import com.cache.server.dto.CacheGetRequest;
-import com.cache.server.dto.CacheResponse;
+import com.cache.server.dto.CacheMultiGetRequest;
+import com.cache.server.dto.CacheMultiGetResponse;
+import com.cache.server.dto.CacheMultiSetRequest;
 import com.cache.server.dto.CacheSetRequest;
 import com.cache.server.dto.ErrorResponse;
-import com.cache.server.exception.CachedValueNotFoundException;
 import com.cache.server.service.CacheManager;
+import com.cache.server.service.JsonValue;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.validator.constraints.Length;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+
 /**
  * REST контроллер для управления кешированием данных.
- * Предоставляет конечные точки для добавления и извлечения данных в/из кеша.
+ * Предоставляет конечные точки для добавления и извлечения данных в/из кеша,
+ * по одному значению или пакетом.
  */
 @Validated
 @RestController
@@ -42,27 +53,99 @@ public class CacheController {
 
     /**
      * Извлекает данные из кеша по указанным ключам.
-     * Если данные не найдены, возвращается ошибка с соответствующим статусом.
+     * Если данные не найдены, возвращается статус 404 с сообщением; отсутствие значения передается
+     * пустым результатом, без создания исключения.
      *
      * @param request объект, содержащий ключи для поиска в кеше.
      * @return объект с данными из кеша или ошибка 404, если данные не найдены.
      */
     @PostMapping("/get")
-    public Mono<ResponseEntity<CacheResponse>> get(@Valid @RequestBody CacheGetRequest request) {
+    public Mono<ResponseEntity<?>> get(@Valid @RequestBody CacheGetRequest request) {
+        return cacheManager.get(request)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .switchIfEmpty(Mono.fromSupplier(() -> notFound(request)));
+    }
+
+    /**
+     * Извлекает данные из кеша по ключам из пути запроса. Ответ можно кешировать: он содержит
+     * {@code Cache-Control} с {@code max-age}, равным оставшемуся времени жизни значения, и {@code Vary: Accept-Encoding},
+     * так как сжатое значение отдается в зависимости от этого заголовка. Значение, хранимое в виде JSON
+     * ({@code cache.memory.value-format=json}), отдается со слабым ETag, вычисленным один раз на запись:
+     * он общий для ответа без сжатия и ответа, сжатого gzip. На запрос с {@code If-None-Match}, совпадающим
+     * с ETag, возвращается статус 304 без тела.
+     * Для остальных значений ETag не формируется, чтобы не сериализовать значение на каждый запрос.
+     *
+     * @param key1 первый ключ для поиска в кеше.
+     * @param key2 второй ключ для поиска в кеше.
+     * @return объект с данными из кеша, статус 304, если данные не изменились, или ошибка 404, если данные не найдены.
+     */
+    @GetMapping("/{key1}/{key2}")
+    public Mono<ResponseEntity<?>> get(@PathVariable @Length(min = 1, max = 255) String key1,
+                                       @PathVariable @Length(min = 1, max = 255) String key2) {
+        var request = new CacheGetRequest(key1, key2);
         return cacheManager.get(request)
+                .<ResponseEntity<?>>map(response -> {
+                    long maxAge = cacheManager.remainingLifeTime(request);
+                    var builder = ResponseEntity.ok()
+                            .cacheControl(maxAge > 0 ? CacheControl.maxAge(Duration.ofSeconds(maxAge)) : CacheControl.noCache())
+                            .varyBy(HttpHeaders.ACCEPT_ENCODING);
+                    if (response.getValue() instanceof JsonValue json) {
+                        builder.eTag(json.etag());
+                    }
+                    return builder.body(response);
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> notFound(request)));
+    }
+
+    /**
+     * Добавляет в кеш несколько значений одним запросом.
+     * Значения сохраняются в базу данных одним пакетом; на другие узлы каждое значение передается отдельным
+     * сообщением с ключом {@code key1}.
+     *
+     * @param request объект, содержащий значения для установки в кеш.
+     * @return ответ с HTTP статусом 202 (ACCEPTED).
+     */
+    @PostMapping("/mset")
+    public Mono<ResponseEntity<?>> setAll(@Valid @RequestBody CacheMultiSetRequest request) {
+        cacheManager.setAllAndSynchronization(request);
+        return Mono.just(ResponseEntity.status(HttpStatus.ACCEPTED).build());
+    }
+
+    /**
+     * Потоковая загрузка записей в кеш: тело запроса содержит записи {@link CacheSetRequest}
+     * в формате NDJSON, по одной на строку. Записи сохраняются пакетами, и на каждый сохраненный пакет
+     * в ответ передается строка с подтверждением. Запрос читается по мере сохранения пакетов.
+     *
+     * @param requests поток записей для установки в кеш.
+     * @return поток подтверждений пакетов в формате NDJSON.
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<CacheBulkResponse> bulk(@Valid @RequestBody Flux<CacheSetRequest> requests) {
+        return cacheManager.setAllAndSynchronization(requests);
+    }
+
+    /**
+     * Извлекает из кеша несколько значений одним запросом.
+     *
+     * @param request объект, содержащий ключи для поиска в кеше.
+     * @return значения в порядке ключей запроса; на месте ненайденного значения {@code null}.
+     */
+    @PostMapping("/mget")
+    public Mono<ResponseEntity<CacheMultiGetResponse>> getAll(@Valid @RequestBody CacheMultiGetRequest request) {
+        return cacheManager.getAll(request)
                 .map(ResponseEntity::ok);
     }
 
     /**
-     * Обработчик исключения, когда запрашиваемое значение не найдено в кеше.
-     * Возвращает ошибку 404 с сообщением, полученным из исключения.
+     * Формирует ответ 404 для ключей, значение которых не найдено в кеше.
      *
-     * @param e исключение, которое будет обработано.
-     * @return ответ с HTTP статусом 404 (NOT_FOUND) и подробным сообщением об ошибке.
+     * @param request объект, содержащий ключи для поиска в кеше.
+     * @return ответ с HTTP статусом 404 (NOT_FOUND) и сообщением об ошибке.
      */
-    @ExceptionHandler(CachedValueNotFoundException.class)
-    public ResponseEntity<ErrorResponse> cachedValueNotFoundExceptionHandler(CachedValueNotFoundException e) {
-        ErrorResponse response = new ErrorResponse(e.getMessage());
+    private static ResponseEntity<?> notFound(CacheGetRequest request) {
+        ErrorResponse response = new ErrorResponse("Value from cached key1=" + request.getPrimaryCacheKey()
+                + ", key2=" + request.getSecondaryCacheKey() + " not found");
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
     }
 }
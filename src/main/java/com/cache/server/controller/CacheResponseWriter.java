@@ -0,0 +1,128 @@
+package com.cache.server.controller;
+
+import com.cache.server.dto.CacheResponse;
+import com.cache.server.service.JsonValue;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Записывает {@link CacheResponse} в тело HTTP ответа.
+ * Если значение хранится в кеше в виде готового JSON ({@link JsonValue}), его байты оборачиваются
+ * в {@link org.springframework.core.io.buffer.DataBuffer} без копирования и повторной сериализации.
+ * Остальные значения передаются делегату (Jackson).
+ * <p>
+ * Сжатое значение отдается клиенту, приславшему {@code Accept-Encoding: gzip}, в сжатом виде без повторного
+ * сжатия (см. {@link GzipEnvelope}); остальным клиентам оно распаковывается при записи ответа.
+ * </p>
+ */
+public class CacheResponseWriter implements HttpMessageWriter<CacheResponse> {
+
+    private static final byte[] PREFIX = "{\"value\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SUFFIX = "}".getBytes(StandardCharsets.UTF_8);
+    private static final GzipEnvelope GZIP_ENVELOPE = new GzipEnvelope(PREFIX, SUFFIX);
+    private static final String GZIP = "gzip";
+
+    private final HttpMessageWriter<Object> delegate;
+
+    /**
+     * @param delegate writer для значений, которые не хранятся в виде JSON.
+     */
+    public CacheResponseWriter(HttpMessageWriter<Object> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<MediaType> getWritableMediaTypes() {
+        return List.of(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    public boolean canWrite(ResolvableType elementType, MediaType mediaType) {
+        return CacheResponse.class.isAssignableFrom(elementType.toClass())
+                && (mediaType == null || MediaType.APPLICATION_JSON.isCompatibleWith(mediaType));
+    }
+
+    @Override
+    public Mono<Void> write(Publisher<? extends CacheResponse> inputStream, ResolvableType elementType,
+                            MediaType mediaType, ReactiveHttpOutputMessage message, Map<String, Object> hints) {
+        return Mono.from(inputStream).flatMap(response -> {
+            if (response.getValue() instanceof JsonValue json) {
+                return writeEncoded(json.getJsonBytes(), mediaType, message);
+            }
+            return delegate.write(Mono.just(response), elementType, mediaType, message, hints);
+        });
+    }
+
+    @Override
+    public Mono<Void> write(Publisher<? extends CacheResponse> inputStream, ResolvableType actualType,
+                            ResolvableType elementType, MediaType mediaType, ServerHttpRequest request,
+                            ServerHttpResponse response, Map<String, Object> hints) {
+        return Mono.from(inputStream).flatMap(cacheResponse -> {
+            if (cacheResponse.getValue() instanceof JsonValue json) {
+                if (!json.isCompressed()) {
+                    return writeEncoded(json.getBytes(), mediaType, response);
+                }
+                if (!response.getHeaders().getVary().contains(HttpHeaders.ACCEPT_ENCODING)) {
+                    response.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                }
+                if (acceptsGzip(request) && GZIP_ENVELOPE.canSplice(json)) {
+                    return writeCompressed(json, mediaType, response);
+                }
+                return writeEncoded(json.getJsonBytes(), mediaType, response);
+            }
+            return delegate.write(Mono.just(cacheResponse), actualType, elementType, mediaType, request, response, hints);
+        });
+    }
+
+    private Mono<Void> writeEncoded(byte[] value, MediaType mediaType, ReactiveHttpOutputMessage message) {
+        var headers = message.getHeaders();
+        headers.setContentType(contentType(mediaType));
+        headers.setContentLength(PREFIX.length + value.length + SUFFIX.length);
+        DataBufferFactory factory = message.bufferFactory();
+        return message.writeWith(Flux.just(factory.wrap(PREFIX), factory.wrap(value), factory.wrap(SUFFIX)));
+    }
+
+    private Mono<Void> writeCompressed(JsonValue value, MediaType mediaType, ReactiveHttpOutputMessage message) {
+        byte[] head = GZIP_ENVELOPE.head();
+        var body = GZIP_ENVELOPE.body(value);
+        byte[] tail = GZIP_ENVELOPE.tail(value);
+        var headers = message.getHeaders();
+        headers.setContentType(contentType(mediaType));
+        headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+        headers.setContentLength(head.length + body.remaining() + tail.length);
+        DataBufferFactory factory = message.bufferFactory();
+        return message.writeWith(Flux.just(factory.wrap(head), factory.wrap(body), factory.wrap(tail)));
+    }
+
+    private static MediaType contentType(MediaType mediaType) {
+        return mediaType != null && mediaType.isConcrete() ? mediaType : MediaType.APPLICATION_JSON;
+    }
+
+    /**
+     * Проверяет, что клиент принимает ответ, сжатый gzip, и не запретил его через {@code q=0}.
+     */
+    private static boolean acceptsGzip(ServerHttpRequest request) {
+        for (String header : request.getHeaders().getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String coding : header.split(",")) {
+                String[] parameters = coding.split(";");
+                if (GZIP.equalsIgnoreCase(parameters[0].trim())) {
+                    return parameters.length < 2 || !parameters[1].trim().matches("q=0(\\.0*)?");
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,172 @@
+package com.cache.server.controller;
+
+import com.cache.server.service.JsonValue;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * Собирает gzip поток из постоянных префикса и суффикса и сжатого значения из кеша без повторного сжатия.
+ * <p>
+ * Сжатое значение ({@link JsonValue#compress()}) заканчивается на sync flush, поэтому его deflate данные
+ * можно вставить между несжатыми (stored) блоками префикса и суффикса. Контрольная сумма CRC32 всего потока
+ * вычисляется из сумм частей, без чтения значения.
+ * </p>
+ */
+final class GzipEnvelope {
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int TRAILER_LENGTH = 8;
+
+    private final byte[] head;
+    private final byte[] suffixBlock;
+    private final long prefixCrc;
+    private final long suffixCrc;
+    private final int prefixLength;
+    private final int suffixLength;
+
+    /**
+     * @param prefix байты, которые записываются перед значением.
+     * @param suffix байты, которые записываются после значения.
+     */
+    GzipEnvelope(byte[] prefix, byte[] suffix) {
+        byte[] prefixBlock = storedBlock(prefix, false);
+        head = new byte[GZIP_HEADER.length + prefixBlock.length];
+        System.arraycopy(GZIP_HEADER, 0, head, 0, GZIP_HEADER.length);
+        System.arraycopy(prefixBlock, 0, head, GZIP_HEADER.length, prefixBlock.length);
+        suffixBlock = storedBlock(suffix, true);
+        prefixCrc = crc(prefix);
+        suffixCrc = crc(suffix);
+        prefixLength = prefix.length;
+        suffixLength = suffix.length;
+    }
+
+    /**
+     * Проверяет, что значение сжато и заканчивается пустым финальным блоком после sync flush.
+     *
+     * @param value значение из кеша.
+     * @return {@code true}, если значение можно вставить в поток.
+     */
+    boolean canSplice(JsonValue value) {
+        if (!value.isCompressed()) {
+            return false;
+        }
+        byte[] bytes = value.getBytes();
+        int end = bytes.length - TRAILER_LENGTH;
+        return bytes[end - 2] == 0x03 && bytes[end - 1] == 0x00;
+    }
+
+    /**
+     * @return заголовок gzip и блок префикса.
+     */
+    byte[] head() {
+        return head;
+    }
+
+    /**
+     * @param value сжатое значение.
+     * @return deflate данные значения без финального блока, без копирования.
+     */
+    ByteBuffer body(JsonValue value) {
+        byte[] bytes = value.getBytes();
+        return ByteBuffer.wrap(bytes, JsonValue.GZIP_HEADER_LENGTH,
+                bytes.length - JsonValue.GZIP_HEADER_LENGTH - JsonValue.GZIP_FOOTER_LENGTH);
+    }
+
+    /**
+     * @param value сжатое значение.
+     * @return финальный блок суффикса и trailer gzip потока.
+     */
+    byte[] tail(JsonValue value) {
+        byte[] bytes = value.getBytes();
+        long valueCrc = readIntLE(bytes, bytes.length - TRAILER_LENGTH) & 0xffffffffL;
+        long valueLength = readIntLE(bytes, bytes.length - 4) & 0xffffffffL;
+        long crc = combine(combine(prefixCrc, valueCrc, valueLength), suffixCrc, suffixLength);
+        long length = prefixLength + valueLength + suffixLength;
+        byte[] tail = new byte[suffixBlock.length + TRAILER_LENGTH];
+        System.arraycopy(suffixBlock, 0, tail, 0, suffixBlock.length);
+        writeIntLE(tail, suffixBlock.length, (int) crc);
+        writeIntLE(tail, suffixBlock.length + 4, (int) length);
+        return tail;
+    }
+
+    private static byte[] storedBlock(byte[] data, boolean last) {
+        byte[] block = new byte[5 + data.length];
+        block[0] = (byte) (last ? 1 : 0);
+        block[1] = (byte) data.length;
+        block[2] = (byte) (data.length >>> 8);
+        block[3] = (byte) ~data.length;
+        block[4] = (byte) (~data.length >>> 8);
+        System.arraycopy(data, 0, block, 5, data.length);
+        return block;
+    }
+
+    private static long crc(byte[] data) {
+        var crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+
+    /**
+     * Вычисляет CRC32 конкатенации двух последовательностей по их суммам (алгоритм crc32_combine из zlib).
+     */
+    static long combine(long crc1, long crc2, long length2) {
+        if (length2 <= 0) {
+            return crc1;
+        }
+        long[] even = new long[32];
+        long[] odd = new long[32];
+        odd[0] = 0xedb88320L;
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        square(even, odd);
+        square(odd, even);
+        do {
+            square(even, odd);
+            if ((length2 & 1) != 0) {
+                crc1 = times(even, crc1);
+            }
+            length2 >>= 1;
+            if (length2 == 0) {
+                break;
+            }
+            square(odd, even);
+            if ((length2 & 1) != 0) {
+                crc1 = times(odd, crc1);
+            }
+            length2 >>= 1;
+        } while (length2 != 0);
+        return crc1 ^ crc2;
+    }
+
+    private static long times(long[] matrix, long vector) {
+        long sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void square(long[] square, long[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = times(matrix, matrix[n]);
+        }
+    }
+
+    private static int readIntLE(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) | (bytes[offset + 1] & 0xff) << 8
+                | (bytes[offset + 2] & 0xff) << 16 | (bytes[offset + 3] & 0xff) << 24;
+    }
+
+    private static void writeIntLE(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+        bytes[offset + 2] = (byte) (value >>> 16);
+        bytes[offset + 3] = (byte) (value >>> 24);
+    }
+}
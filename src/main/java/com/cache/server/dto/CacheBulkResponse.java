@@ -0,0 +1,28 @@
+package com.cache.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Подтверждение пакета записей потоковой загрузки: пакет сохранен в кеш и в базу данных
+ * и передан на другие узлы.
+ */
+@Data
+@AllArgsConstructor
+public class CacheBulkResponse {
+
+    /**
+     * Порядковый номер пакета, начиная с 0.
+     */
+    private long batch;
+
+    /**
+     * Число записей в пакете.
+     */
+    private int count;
+
+    /**
+     * Общее число подтвержденных записей, включая этот пакет.
+     */
+    private long total;
+}
@@ -0,0 +1,45 @@
+package com.cache.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Ключи значений, которые нужно удалить из кеша в памяти на всех узлах,
+ * например после удаления просроченных записей из базы данных.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CacheEvictRequest implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 4378106297371533520L;
+
+    private List<Key> keys;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = -2967011839261584707L;
+
+        private String primaryCacheKey;
+        private String secondaryCacheKey;
+        /**
+         * Время истечения удаленной записи в миллисекундах; значение, которое истекает позже, записано
+         * после нее и не удаляется. {@code null} — удалить значение безусловно.
+         */
+        private Long expired;
+
+        public Key(String primaryCacheKey, String secondaryCacheKey) {
+            this(primaryCacheKey, secondaryCacheKey, null);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.cache.server.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Ключи нескольких значений, извлекаемых из кеша одним запросом.
+ */
+@Data
+public class CacheMultiGetRequest {
+
+    @NotEmpty
+    @Size(max = 1000)
+    private List<@Valid CacheGetRequest> keys;
+
+}
@@ -0,0 +1,17 @@
+package com.cache.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Значения, найденные по ключам {@link CacheMultiGetRequest}, в порядке ключей запроса.
+ * На месте ненайденного значения стоит {@code null}.
+ */
+@Data
+@AllArgsConstructor
+public class CacheMultiGetResponse {
+
+    private List<Object> values;
+}
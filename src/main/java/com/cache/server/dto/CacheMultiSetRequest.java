@@ -0,0 +1,31 @@
+package com.cache.server.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Несколько значений, сохраняемых в кеш одним запросом.
+ * Пакет целиком сохраняется в базу данных; на другие узлы каждое значение передается отдельным сообщением
+ * с ключом {@code key1}, чтобы сохранить порядок обновлений ключа.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CacheMultiSetRequest implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 7512480736254317245L;
+
+    @NotEmpty
+    @Size(max = 1000)
+    private List<@Valid CacheSetRequest> entries;
+
+}
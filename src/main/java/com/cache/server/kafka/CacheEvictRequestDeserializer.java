@@ -0,0 +1,15 @@
+package com.cache.server.kafka;
+
+import com.cache.server.dto.CacheEvictRequest;
+import org.apache.kafka.common.serialization.Deserializer;
+
+public class CacheEvictRequestDeserializer implements Deserializer<CacheEvictRequest> {
+
+    @Override
+    public CacheEvictRequest deserialize(String s, byte[] bytes) {
+        if (ReplicationCodec.isLegacy(bytes)) {
+            return ReplicationCodec.decodeLegacy(bytes, CacheEvictRequest.class);
+        }
+        return new CacheEvictRequest(ReplicationCodec.decodeKeys(bytes));
+    }
+}
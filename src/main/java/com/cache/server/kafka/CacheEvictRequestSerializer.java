@@ -0,0 +1,12 @@
+package com.cache.server.kafka;
+
+import com.cache.server.dto.CacheEvictRequest;
+import org.apache.kafka.common.serialization.Serializer;
+
+public class CacheEvictRequestSerializer implements Serializer<CacheEvictRequest> {
+
+    @Override
+    public byte[] serialize(String s, CacheEvictRequest cacheEvictRequest) {
+        return ReplicationCodec.encodeKeys(cacheEvictRequest.getKeys());
+    }
+}
@@ -1,21 +1,20 @@
 package com.cache.server.kafka;
 
 import com.cache.server.dto.CacheSetRequest;
+import org.apache.kafka.common.errors.SerializationException;
 import org.apache.kafka.common.serialization.Deserializer;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-
 public class CacheSetRequestDeserializer implements Deserializer<CacheSetRequest> {
 
     @Override
     public CacheSetRequest deserialize(String s, byte[] bytes) {
-        try (ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(bytes);
-             ObjectInputStream objectInputStream = new ObjectInputStream(byteArrayInputStream)) {
-            return (CacheSetRequest) objectInputStream.readObject();
-        } catch (IOException | ClassNotFoundException e) {
-            throw new RuntimeException(e);
+        if (ReplicationCodec.isLegacy(bytes)) {
+            return ReplicationCodec.decodeLegacy(bytes, CacheSetRequest.class);
+        }
+        var entries = ReplicationCodec.decode(bytes);
+        if (entries.size() != 1) {
+            throw new SerializationException("Expected one entry, got " + entries.size());
         }
+        return entries.get(0);
     }
 }
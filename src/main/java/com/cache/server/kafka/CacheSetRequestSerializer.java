@@ -1,23 +1,19 @@
 package com.cache.server.kafka;
 
 import com.cache.server.dto.CacheSetRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
 import org.apache.kafka.common.serialization.Serializer;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.ObjectOutputStream;
+import java.util.List;
 
+@RequiredArgsConstructor
 public class CacheSetRequestSerializer implements Serializer<CacheSetRequest> {
 
+    private final ObjectMapper objectMapper;
+
     @Override
     public byte[] serialize(String s, CacheSetRequest cacheSetRequest) {
-        try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-             ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
-            objectOutputStream.writeObject(cacheSetRequest);
-            return byteArrayOutputStream.toByteArray();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        return ReplicationCodec.encode(objectMapper, List.of(cacheSetRequest));
     }
 }
-
@@ -1,26 +1,63 @@
 package com.cache.server.kafka;
 
 import com.cache.server.CacheServerApplication;
+import com.cache.server.dto.CacheEvictRequest;
 import com.cache.server.dto.CacheSetRequest;
 import com.cache.server.service.CacheManager;
+import com.cache.server.service.CacheService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class ConsumerSynchronization {
 
+    private static final byte[] ID = CacheServerApplication.ID.toString().getBytes();
     private final CacheManager cacheManager;
 
+    /**
+     * Applies a polled batch of updates from the other nodes: only the latest update of each key is kept,
+     * and the batch is saved to memory and to the storage at once. Returns once the batch is applied,
+     * so the offsets are committed after it and the number of updates held in memory is bounded
+     * by {@code kafka.consumer.max-poll-records}. A record that could not be deserialized is logged and skipped.
+     */
     @KafkaListener(topics = "${kafka.topic-name}", groupId = "${kafka.group-id}")
-    public void consume(CacheSetRequest message, @Header(ProducerSynchronization.APP_ID) String appId) {
-        log.info("appId={}. Consumed message: {}", appId, message);
+    public void consume(List<ConsumerRecord<String, CacheSetRequest>> records) {
+        var latest = new LinkedHashMap<CacheService.Key, CacheSetRequest>();
+        for (var record : records) {
+            var appId = record.headers().lastHeader(ProducerSynchronization.APP_ID);
+            if (appId != null && Arrays.equals(appId.value(), ID)) {
+                continue;
+            }
+            var message = record.value();
+            if (message == null) {
+                log.error("Skipping malformed replication record: partition={}, offset={}", record.partition(), record.offset());
+                continue;
+            }
+            latest.put(new CacheService.Key(message.getPrimaryCacheKey(), message.getSecondaryCacheKey()), message);
+        }
+        log.debug("Consumed {} messages, applying {} keys", records.size(), latest.size());
+        if (!latest.isEmpty()) {
+            cacheManager.storeAll(new ArrayList<>(latest.values())).block();
+        }
+    }
+
+    @KafkaListener(topics = "${kafka.eviction-topic-name}", groupId = "${kafka.group-id}",
+            containerFactory = "evictionKafkaListenerContainerFactory")
+    public void consumeEviction(CacheEvictRequest message, @Header(ProducerSynchronization.APP_ID) String appId) {
+        log.info("appId={}. Consumed eviction of {} keys", appId, message.getKeys().size());
         if (!appId.equals(CacheServerApplication.ID.toString())) {
-            cacheManager.set(message);
+            cacheManager.evict(message);
         }
     }
 }
@@ -2,6 +2,7 @@ package com.cache.server.kafka;
 
 import com.cache.server.CacheServerApplication;
 import com.cache.server.config.KafkaProperties;
+import com.cache.server.dto.CacheEvictRequest;
 import com.cache.server.dto.CacheSetRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,20 +10,36 @@ import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class ProducerSynchronization {
 
-    private final KafkaTemplate<CacheSetRequest, CacheSetRequest> kafkaTemplate;
+    private final KafkaTemplate<String, CacheSetRequest> kafkaTemplate;
+    private final KafkaTemplate<String, CacheEvictRequest> evictionKafkaTemplate;
     private final KafkaProperties kafkaProperties;
     private static final byte[] ID = CacheServerApplication.ID.toString().getBytes();
     public static final String APP_ID = "app-id";
 
-    public void sendMessage(CacheSetRequest message) {
-        ProducerRecord<CacheSetRequest, CacheSetRequest> record = new ProducerRecord<>(kafkaProperties.getTopicName(), message);
+    /**
+     * @return completes once the record is acknowledged by the broker.
+     */
+    public CompletableFuture<?> sendMessage(CacheSetRequest message) {
+        ProducerRecord<String, CacheSetRequest> record =
+                new ProducerRecord<>(kafkaProperties.getTopicName(), message.getPrimaryCacheKey(), message);
+        record.headers().add(APP_ID, ID);
+        var result = kafkaTemplate.send(record);
+        log.debug("send message to topic {} : key1={}, key2={}", kafkaProperties.getTopicName(),
+                message.getPrimaryCacheKey(), message.getSecondaryCacheKey());
+        return result;
+    }
+
+    public void sendEviction(CacheEvictRequest message) {
+        ProducerRecord<String, CacheEvictRequest> record = new ProducerRecord<>(kafkaProperties.getEvictionTopicName(), message);
         record.headers().add(APP_ID, ID);
-        kafkaTemplate.send(record);
-        log.info("send message to topic {} : {}", kafkaProperties.getTopicName(), message);
+        evictionKafkaTemplate.send(record);
+        log.info("send eviction of {} keys to topic {}", message.getKeys().size(), kafkaProperties.getEvictionTopicName());
     }
 }
@@ -0,0 +1,233 @@
+package com.cache.server.kafka;
+
+import com.cache.server.config.KafkaProperties;
+import com.cache.server.dto.CacheSetRequest;
+import com.cache.server.service.CacheService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffers the outgoing replication updates and sends only the latest update of each key.
+ * <p>
+ * The buffer is sent by a background thread every {@code window} milliseconds, or earlier once it holds
+ * {@code max-batch} keys. Updates of a key within a window replace each other, so a key rewritten many times
+ * per second costs one record per window. The records are batched and compressed by the producer,
+ * see {@code kafka.producer}. The buffer holds at most {@code capacity} keys: a writer of a new key waits
+ * while it is full, an update of a buffered key never waits.
+ * </p>
+ * <p>
+ * An eviction drops the pending update of its keys and waits until the updates being sent are acknowledged,
+ * so that it is not sent before them. The number of coalesced updates and of buffered keys are published as
+ * the {@code cache.replication.coalesced} and {@code cache.replication.pending} metrics.
+ * </p>
+ * <p>
+ * Activated by {@code kafka.coalescing.enable=true}. Replicas see an update up to {@code window} milliseconds
+ * later. The pending updates are sent on close.
+ * </p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "kafka.coalescing.enable", havingValue = "true")
+public class ReplicationCoalescer implements AutoCloseable {
+
+    private final ProducerSynchronization producerSynchronization;
+    private final long window;
+    private final int maxBatch;
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushRequested = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final Thread flusher;
+    private LinkedHashMap<CacheService.Key, CacheSetRequest> pending = new LinkedHashMap<>();
+    private volatile boolean closed;
+
+    public ReplicationCoalescer(ProducerSynchronization producerSynchronization, KafkaProperties kafkaProperties,
+                                Optional<MeterRegistry> meterRegistry) {
+        var properties = kafkaProperties.getCoalescing();
+        this.producerSynchronization = producerSynchronization;
+        this.window = TimeUnit.MILLISECONDS.toNanos(properties.getWindow());
+        this.maxBatch = properties.getMaxBatch();
+        this.capacity = properties.getCapacity();
+        meterRegistry.ifPresent(registry -> {
+            FunctionCounter.builder("cache.replication.coalesced", this, ReplicationCoalescer::coalesced)
+                    .description("Updates replaced by a later update of the same key before being sent")
+                    .register(registry);
+            Gauge.builder("cache.replication.pending", this, ReplicationCoalescer::pending)
+                    .description("Keys waiting to be sent")
+                    .register(registry);
+        });
+        this.flusher = new Thread(this::run, "replication-coalescer");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+        log.debug("Initializing ReplicationCoalescer: window={} ms, maxBatch={}, capacity={}",
+                properties.getWindow(), maxBatch, capacity);
+    }
+
+    /**
+     * Adds an update to the buffer, replacing the pending update of the same key.
+     * Waits if the buffer is full and holds no update of the key.
+     *
+     * @param request the update to replicate.
+     * @throws IllegalStateException if the buffer is closed.
+     */
+    public void submit(CacheSetRequest request) {
+        var key = new CacheService.Key(request.getPrimaryCacheKey(), request.getSecondaryCacheKey());
+        lock.lock();
+        try {
+            while (!closed && pending.size() >= capacity && !pending.containsKey(key)) {
+                flushRequested.signal();
+                notFull.awaitUninterruptibly();
+            }
+            if (closed) {
+                throw new IllegalStateException("Replication buffer is closed");
+            }
+            if (pending.put(key, request) != null) {
+                coalesced.incrementAndGet();
+            }
+            if (pending.size() >= maxBatch) {
+                flushRequested.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the pending update of a key after the updates being sent, if any, have been acknowledged,
+     * so that an eviction sent afterwards is not overtaken by them.
+     *
+     * @param key1 the primary key.
+     * @param key2 the secondary key.
+     */
+    public void discard(String key1, String key2) {
+        flushLock.lock();
+        lock.lock();
+        try {
+            pending.remove(new CacheService.Key(key1, key2));
+        } finally {
+            lock.unlock();
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of updates replaced by a later update of the same key before being sent.
+     */
+    public long coalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return the number of keys waiting to be sent.
+     */
+    public int pending() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends the pending updates and stops the background thread.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        lock.lock();
+        try {
+            closed = true;
+            flushRequested.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        flusher.join();
+        log.info("ReplicationCoalescer closed, {} updates coalesced", coalesced.get());
+    }
+
+    private void run() {
+        long nextFlush = System.nanoTime() + window;
+        while (true) {
+            lock.lock();
+            try {
+                long wait;
+                while (!closed && pending.size() < maxBatch && (wait = nextFlush - System.nanoTime()) > 0L) {
+                    flushRequested.awaitNanos(wait);
+                }
+                if (closed && pending.isEmpty()) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            flushLock.lock();
+            try {
+                send(drain());
+            } finally {
+                flushLock.unlock();
+            }
+            nextFlush = System.nanoTime() + window;
+        }
+    }
+
+    private List<CacheSetRequest> drain() {
+        lock.lock();
+        try {
+            var batch = new ArrayList<>(pending.values());
+            pending = new LinkedHashMap<>();
+            notFull.signalAll();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends the updates and waits until they are acknowledged.
+     */
+    private void send(List<CacheSetRequest> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        var sent = new ArrayList<CompletableFuture<?>>(batch.size());
+        for (var request : batch) {
+            try {
+                sent.add(producerSynchronization.sendMessage(request));
+            } catch (Exception e) {
+                sent.add(CompletableFuture.failedFuture(e));
+            }
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                sent.get(i).join();
+            } catch (CompletionException | CancellationException e) {
+                var request = batch.get(i);
+                log.error("Failed to replicate key1={}, key2={}", request.getPrimaryCacheKey(), request.getSecondaryCacheKey(),
+                        e.getCause() != null ? e.getCause() : e);
+            }
+        }
+        log.debug("Replicated {} keys, {} updates coalesced so far", batch.size(), coalesced.get());
+    }
+}
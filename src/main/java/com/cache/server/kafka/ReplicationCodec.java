@@ -0,0 +1,157 @@
+package com.cache.server.kafka;
+
+import com.cache.server.dto.CacheEvictRequest;
+import com.cache.server.dto.CacheSetRequest;
+import com.cache.server.service.JsonValue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary form of the replication messages.
+ * <p>
+ * A message starts with the format version, followed by the entries. An entry is the lifetime in seconds
+ * ({@code -1} for the default one), both keys as length-prefixed UTF-8 and the value as length-prefixed
+ * JSON bytes, gzip-compressed if it is stored compressed. Values are written as they are stored and read
+ * back as {@link JsonValue}, so a replica neither walks nor re-encodes an object tree. An evicted key is followed
+ * by the time the deleted row expired, in milliseconds, or {@code -1} for an unconditional eviction.
+ * </p>
+ * <p>
+ * Messages of the previous release, written with Java serialization, are still read, restricted to the message
+ * classes and the JDK collections, so that the records left on the topics are applied after an upgrade. Nodes of
+ * the previous release cannot read this format: the cluster is upgraded by stopping all the nodes before starting
+ * the new ones, not by a rolling restart. Reading the previous format is to be removed in the next release.
+ * </p>
+ */
+final class ReplicationCodec {
+
+    static final byte VERSION = 1;
+    private static final ObjectInputFilter LEGACY_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=64;maxarray=1048576;com.cache.server.dto.*;java.lang.*;java.util.*;java.math.*;!*");
+    private static final long DEFAULT_LIFE_TIME = -1L;
+    private static final long UNCONDITIONAL = -1L;
+
+    private ReplicationCodec() {
+    }
+
+    static byte[] encode(ObjectMapper objectMapper, List<CacheSetRequest> entries) {
+        var keys1 = new byte[entries.size()][];
+        var keys2 = new byte[entries.size()][];
+        var values = new byte[entries.size()][];
+        int length = 1 + 4;
+        for (int i = 0; i < entries.size(); i++) {
+            var entry = entries.get(i);
+            keys1[i] = entry.getPrimaryCacheKey().getBytes(StandardCharsets.UTF_8);
+            keys2[i] = entry.getSecondaryCacheKey().getBytes(StandardCharsets.UTF_8);
+            values[i] = entry.getValue() instanceof JsonValue json
+                    ? json.getBytes()
+                    : JsonValue.encode(objectMapper, entry.getValue()).getBytes();
+            length += 8 + 2 + keys1[i].length + 2 + keys2[i].length + 4 + values[i].length;
+        }
+        var buffer = ByteBuffer.allocate(length).put(VERSION).putInt(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            Long expired = entries.get(i).getExpired();
+            buffer.putLong(expired != null ? expired : DEFAULT_LIFE_TIME)
+                    .putShort((short) keys1[i].length).put(keys1[i])
+                    .putShort((short) keys2[i].length).put(keys2[i])
+                    .putInt(values[i].length).put(values[i]);
+        }
+        return buffer.array();
+    }
+
+    static List<CacheSetRequest> decode(byte[] bytes) {
+        try {
+            var buffer = versioned(bytes);
+            int count = buffer.getInt();
+            var entries = new ArrayList<CacheSetRequest>(Math.min(count, buffer.remaining()));
+            for (int i = 0; i < count; i++) {
+                long expired = buffer.getLong();
+                String key1 = readString(buffer);
+                String key2 = readString(buffer);
+                var value = new byte[buffer.getInt()];
+                buffer.get(value);
+                entries.add(new CacheSetRequest(key1, key2, expired != DEFAULT_LIFE_TIME ? expired : null, JsonValue.wrap(value)));
+            }
+            return entries;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException | IllegalArgumentException e) {
+            throw new SerializationException("Malformed replication message", e);
+        }
+    }
+
+    static byte[] encodeKeys(List<CacheEvictRequest.Key> keys) {
+        var keys1 = new byte[keys.size()][];
+        var keys2 = new byte[keys.size()][];
+        int length = 1 + 4;
+        for (int i = 0; i < keys.size(); i++) {
+            keys1[i] = keys.get(i).getPrimaryCacheKey().getBytes(StandardCharsets.UTF_8);
+            keys2[i] = keys.get(i).getSecondaryCacheKey().getBytes(StandardCharsets.UTF_8);
+            length += 2 + keys1[i].length + 2 + keys2[i].length + 8;
+        }
+        var buffer = ByteBuffer.allocate(length).put(VERSION).putInt(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            Long expired = keys.get(i).getExpired();
+            buffer.putShort((short) keys1[i].length).put(keys1[i])
+                    .putShort((short) keys2[i].length).put(keys2[i])
+                    .putLong(expired != null ? expired : UNCONDITIONAL);
+        }
+        return buffer.array();
+    }
+
+    static List<CacheEvictRequest.Key> decodeKeys(byte[] bytes) {
+        try {
+            var buffer = versioned(bytes);
+            int count = buffer.getInt();
+            var keys = new ArrayList<CacheEvictRequest.Key>(Math.min(count, buffer.remaining()));
+            for (int i = 0; i < count; i++) {
+                String key1 = readString(buffer);
+                String key2 = readString(buffer);
+                long expired = buffer.getLong();
+                keys.add(new CacheEvictRequest.Key(key1, key2, expired != UNCONDITIONAL ? expired : null));
+            }
+            return keys;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new SerializationException("Malformed replication message", e);
+        }
+    }
+
+    /**
+     * @return {@code true} if the message was written with Java serialization by the previous release.
+     */
+    static boolean isLegacy(byte[] bytes) {
+        return bytes.length >= 2 && bytes[0] == (byte) 0xAC && bytes[1] == (byte) 0xED;
+    }
+
+    static <T> T decodeLegacy(byte[] bytes, Class<T> type) {
+        try (var in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            in.setObjectInputFilter(LEGACY_FILTER);
+            return type.cast(in.readObject());
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            throw new SerializationException("Malformed legacy replication message", e);
+        }
+    }
+
+    private static ByteBuffer versioned(byte[] bytes) {
+        var buffer = ByteBuffer.wrap(bytes);
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new SerializationException("Unsupported replication message version " + version);
+        }
+        return buffer;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
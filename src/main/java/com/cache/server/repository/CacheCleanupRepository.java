@@ -0,0 +1,32 @@
+package com.cache.server.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Set-based removal of expired {@link CacheEntity} rows, coordinated between the nodes.
+ */
+public interface CacheCleanupRepository {
+
+    /**
+     * Tries to become the node that cleans the table, until the end of the current transaction.
+     *
+     * @return {@code true} if no other node is cleaning the table in a concurrent transaction.
+     */
+    boolean tryLockCleanup();
+
+    /**
+     * Deletes up to {@code limit} rows that have expired, the oldest first.
+     *
+     * @param now   the rows that expire at or before this time are deleted.
+     * @param limit the maximum number of rows to delete.
+     * @return the keys and expiry times of the deleted rows.
+     */
+    List<Key> deleteExpired(LocalDateTime now, int limit);
+
+    /**
+     * Key of a deleted row, with the time the row expired.
+     */
+    record Key(String primaryCacheKey, String secondaryCacheKey, LocalDateTime expired) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.cache.server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Coordinates the nodes with a transaction-level Postgres advisory lock and deletes with
+ * {@code DELETE ... RETURNING} over the index on {@code expired}. Rows locked by concurrent writes are skipped.
+ * H2, used by the tests, has neither, so there the lock always succeeds and the rows are selected and deleted
+ * in two statements.
+ */
+@RequiredArgsConstructor
+public class CacheCleanupRepositoryImpl implements CacheCleanupRepository {
+
+    /**
+     * Advisory lock key, shared by all nodes.
+     */
+    private static final long CLEANUP_LOCK = 0x63616368655f636cL;
+    private static final String POSTGRES_DELETE_EXPIRED = """
+            DELETE FROM cache_entry
+            WHERE id IN (SELECT id FROM cache_entry WHERE expired <= ? ORDER BY expired LIMIT ? FOR UPDATE SKIP LOCKED)
+            RETURNING primary_cache_key, secondary_cache_key, expired
+            """;
+    private static final String H2_SELECT_EXPIRED = """
+            SELECT id, primary_cache_key, secondary_cache_key, expired FROM cache_entry WHERE expired <= ? ORDER BY expired LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean h2;
+
+    @Override
+    public boolean tryLockCleanup() {
+        if (isH2()) {
+            return true;
+        }
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, CLEANUP_LOCK));
+    }
+
+    @Override
+    public List<Key> deleteExpired(LocalDateTime now, int limit) {
+        if (!isH2()) {
+            return jdbcTemplate.query(POSTGRES_DELETE_EXPIRED,
+                    (rs, rowNum) -> new Key(rs.getString(1), rs.getString(2), rs.getTimestamp(3).toLocalDateTime()),
+                    Timestamp.valueOf(now), limit);
+        }
+        List<Object[]> rows = jdbcTemplate.query(H2_SELECT_EXPIRED,
+                (rs, rowNum) -> new Object[]{rs.getLong(1), new Key(rs.getString(2), rs.getString(3), rs.getTimestamp(4).toLocalDateTime())},
+                Timestamp.valueOf(now), limit);
+        jdbcTemplate.batchUpdate("DELETE FROM cache_entry WHERE id = ?", rows.stream().map(row -> new Object[]{row[0]}).toList());
+        return rows.stream().map(row -> (Key) row[1]).toList();
+    }
+
+    private boolean isH2() {
+        if (h2 == null) {
+            h2 = "H2".equals(jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName()));
+        }
+        return h2;
+    }
+}
@@ -13,7 +13,9 @@ import java.util.Objects;
 @Cacheable(false)
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "cache_entry")
+@Table(name = "cache_entry", uniqueConstraints = @UniqueConstraint(
+        name = "cache_entry_key_uk", columnNames = {"primary_cache_key", "secondary_cache_key"}),
+        indexes = @Index(name = "cache_entry_expired_idx", columnList = "expired"))
 public class CacheEntity {
 
     @Id
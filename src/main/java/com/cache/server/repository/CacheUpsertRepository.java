@@ -0,0 +1,24 @@
+package com.cache.server.repository;
+
+import java.util.List;
+
+/**
+ * Writes of {@link CacheEntity} that replace the existing row of the key instead of adding a new one.
+ */
+public interface CacheUpsertRepository {
+
+    /**
+     * Inserts an entry or updates the row with the same primary and secondary keys.
+     *
+     * @param entity the entry to write.
+     */
+    void upsert(CacheEntity entity);
+
+    /**
+     * Inserts or updates entries in JDBC batches. The keys of the entries must be distinct.
+     *
+     * @param entities  the entries to write.
+     * @param batchSize the maximum number of statements in a batch.
+     */
+    void upsertAll(List<CacheEntity> entities, int batchSize);
+}
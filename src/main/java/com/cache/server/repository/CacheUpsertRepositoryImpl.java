@@ -0,0 +1,106 @@
+package com.cache.server.repository;
+
+import com.cache.server.config.CacheProperties;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Upserts with {@code INSERT ... ON CONFLICT DO UPDATE} on the unique key of the table.
+ * H2, used by the tests, has no {@code ON CONFLICT DO UPDATE}, so {@code MERGE ... KEY} is used there instead.
+ * <p>
+ * A table partitioned by {@code expired} ({@code cache.db.partitioning.enable=true}) cannot have a unique key
+ * on the cache keys alone, so there the row of the key is deleted and inserted again, under a transaction-level
+ * advisory lock on the key that serializes the writers of the key.
+ * </p>
+ */
+public class CacheUpsertRepositoryImpl implements CacheUpsertRepository {
+
+    private static final String POSTGRES_UPSERT = """
+            INSERT INTO cache_entry (primary_cache_key, secondary_cache_key, created, expired, cache_value)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (primary_cache_key, secondary_cache_key)
+            DO UPDATE SET created = EXCLUDED.created, expired = EXCLUDED.expired, cache_value = EXCLUDED.cache_value
+            """;
+    private static final String H2_UPSERT = """
+            MERGE INTO cache_entry (primary_cache_key, secondary_cache_key, created, expired, cache_value)
+            KEY (primary_cache_key, secondary_cache_key)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+    private static final String PARTITIONED_LOCK = "SELECT pg_advisory_xact_lock(hashtextextended(? || chr(0) || ?, 0))";
+    private static final String PARTITIONED_UPSERT = """
+            WITH removed AS (DELETE FROM cache_entry WHERE primary_cache_key = ? AND secondary_cache_key = ?)
+            INSERT INTO cache_entry (primary_cache_key, secondary_cache_key, created, expired, cache_value)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean partitioned;
+    private volatile String upsert;
+
+    public CacheUpsertRepositoryImpl(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                     CacheProperties cacheProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.partitioned = cacheProperties.getDb().getPartitioning().isEnable();
+    }
+
+    @Override
+    public void upsert(CacheEntity entity) {
+        if (partitioned) {
+            upsertAll(List.of(entity), 1);
+            return;
+        }
+        jdbcTemplate.update(upsert(), ps -> setValues(ps, entity));
+    }
+
+    @Override
+    public void upsertAll(List<CacheEntity> entities, int batchSize) {
+        if (partitioned) {
+            // the keys are locked in a fixed order, so that two batches cannot wait for each other
+            var sorted = entities.stream()
+                    .sorted(Comparator.comparing(CacheEntity::getPrimaryCacheKey).thenComparing(CacheEntity::getSecondaryCacheKey))
+                    .toList();
+            transactionTemplate.executeWithoutResult(status -> {
+                for (var entity : sorted) {
+                    jdbcTemplate.query(PARTITIONED_LOCK, rs -> null, entity.getPrimaryCacheKey(), entity.getSecondaryCacheKey());
+                }
+                jdbcTemplate.batchUpdate(PARTITIONED_UPSERT, sorted, batchSize, (ps, entity) -> {
+                    ps.setString(1, entity.getPrimaryCacheKey());
+                    ps.setString(2, entity.getSecondaryCacheKey());
+                    setValues(ps, entity, 3);
+                });
+            });
+            return;
+        }
+        jdbcTemplate.batchUpdate(upsert(), entities, batchSize, CacheUpsertRepositoryImpl::setValues);
+    }
+
+    private String upsert() {
+        if (upsert == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            upsert = "H2".equals(product) ? H2_UPSERT : POSTGRES_UPSERT;
+        }
+        return upsert;
+    }
+
+    private static void setValues(PreparedStatement ps, CacheEntity entity) throws SQLException {
+        setValues(ps, entity, 1);
+    }
+
+    private static void setValues(PreparedStatement ps, CacheEntity entity, int index) throws SQLException {
+        ps.setString(index, entity.getPrimaryCacheKey());
+        ps.setString(index + 1, entity.getSecondaryCacheKey());
+        ps.setTimestamp(index + 2, Timestamp.valueOf(entity.getCreated()));
+        ps.setTimestamp(index + 3, Timestamp.valueOf(entity.getExpired()));
+        ps.setString(index + 4, entity.getCacheValue());
+    }
+}
@@ -0,0 +1,20 @@
+package com.cache.server.resp;
+
+import java.util.List;
+
+/**
+ * A command decoded from the RESP stream.
+ *
+ * @param name      the command name in upper case, or {@code null} if the stream is malformed.
+ * @param arguments the arguments following the name, or the description of the protocol error.
+ */
+record RespCommand(String name, List<byte[]> arguments) {
+
+    static RespCommand protocolError(String message) {
+        return new RespCommand(null, List.of(message.getBytes()));
+    }
+
+    boolean isProtocolError() {
+        return name == null;
+    }
+}
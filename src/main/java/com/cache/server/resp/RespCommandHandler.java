@@ -0,0 +1,227 @@
+package com.cache.server.resp;
+
+import com.cache.server.config.CacheProperties;
+import com.cache.server.dto.CacheEvictRequest;
+import com.cache.server.dto.CacheGetRequest;
+import com.cache.server.dto.CacheMultiGetRequest;
+import com.cache.server.dto.CacheSetRequest;
+import com.cache.server.service.CacheManager;
+import com.cache.server.service.JsonValue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Executes the RESP commands on the {@link CacheManager} and encodes the replies.
+ * <p>
+ * A Redis key is mapped onto the pair of cache keys by splitting it at the first
+ * {@code cache.resp.key-separator}: {@code user:42} is the primary key {@code user} and the secondary
+ * key {@code 42}. String values are stored and returned as they are; values stored as JSON through the
+ * REST API are returned as JSON text, except JSON strings, which are returned unquoted.
+ * Values are stored as text, so binary values are not supported: {@code SET} rejects a value that is not
+ * valid UTF-8 with an error reply instead of storing a corrupted copy.
+ * </p>
+ * <p>
+ * Supported commands: {@code PING}, {@code ECHO}, {@code GET}, {@code SET key value [EX seconds | PX milliseconds]},
+ * {@code DEL}, {@code MGET}, {@code COMMAND} (an empty reply, for the clients that query it on connect) and
+ * {@code QUIT}. {@code SET} replies once the value is stored in memory and persisted, so the commands of a
+ * connection see the writes of the earlier ones.
+ * </p>
+ */
+@Slf4j
+class RespCommandHandler {
+
+    static final String QUIT = "QUIT";
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] OK = "+OK\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PONG = "+PONG\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL_BULK = "$-1\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EMPTY_ARRAY = "*0\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+    private final String keySeparator;
+
+    RespCommandHandler(CacheManager cacheManager, ObjectMapper objectMapper, CacheProperties cacheProperties) {
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
+        this.keySeparator = cacheProperties.getResp().getKeySeparator();
+    }
+
+    /**
+     * Executes a command. Errors are replied as RESP errors and do not close the connection.
+     *
+     * @param command the decoded command.
+     * @return the encoded reply.
+     */
+    Mono<ByteBuf> handle(RespCommand command) {
+        if (command.isProtocolError()) {
+            return Mono.just(error("Protocol error: " + new String(command.arguments().get(0), StandardCharsets.UTF_8)));
+        }
+        try {
+            return execute(command.name(), command.arguments())
+                    .onErrorResume(e -> {
+                        log.error("RESP command {} failed", command.name(), e);
+                        return Mono.just(error(String.valueOf(e.getMessage())));
+                    });
+        } catch (IllegalArgumentException e) {
+            return Mono.just(error(e.getMessage()));
+        }
+    }
+
+    private Mono<ByteBuf> execute(String name, List<byte[]> arguments) {
+        return switch (name) {
+            case "PING" -> arguments.isEmpty() ? Mono.just(Unpooled.wrappedBuffer(PONG)) : Mono.just(bulk(arguments.get(0)));
+            case "ECHO" -> Mono.just(bulk(argument(name, arguments, 0, 1)));
+            case QUIT -> Mono.just(Unpooled.wrappedBuffer(OK));
+            case "COMMAND" -> Mono.just(Unpooled.wrappedBuffer(EMPTY_ARRAY));
+            case "GET" -> get(argument(name, arguments, 0, 1));
+            case "SET" -> set(arguments);
+            case "DEL" -> delete(arguments);
+            case "MGET" -> multiGet(arguments);
+            default -> Mono.just(error("unknown command '" + name.toLowerCase(Locale.ROOT) + "'"));
+        };
+    }
+
+    private Mono<ByteBuf> get(byte[] key) {
+        return cacheManager.get(getRequest(key))
+                .map(response -> bulk(toBytes(response.getValue())))
+                .defaultIfEmpty(Unpooled.wrappedBuffer(NULL_BULK));
+    }
+
+    private Mono<ByteBuf> set(List<byte[]> arguments) {
+        if (arguments.size() != 2 && arguments.size() != 4) {
+            throw new IllegalArgumentException("syntax error");
+        }
+        var key = getRequest(arguments.get(0));
+        Long lifeTime = null;
+        if (arguments.size() == 4) {
+            String option = new String(arguments.get(2), StandardCharsets.UTF_8).toUpperCase(Locale.ROOT);
+            long amount = parseLong(arguments.get(3));
+            if (amount <= 0) {
+                throw new IllegalArgumentException("invalid expire time in 'set' command");
+            }
+            lifeTime = switch (option) {
+                case "EX" -> amount;
+                case "PX" -> (amount + 999) / 1000;
+                default -> throw new IllegalArgumentException("syntax error");
+            };
+        }
+        var request = new CacheSetRequest(key.getPrimaryCacheKey(), key.getSecondaryCacheKey(), lifeTime,
+                decodeValue(arguments.get(1)));
+        return cacheManager.store(request)
+                .thenReturn(Unpooled.wrappedBuffer(OK));
+    }
+
+    private static String decodeValue(byte[] value) {
+        try {
+            return StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(value))
+                    .toString();
+        } catch (CharacterCodingException e) {
+            throw new IllegalArgumentException("value is not valid UTF-8, binary values are not supported");
+        }
+    }
+
+    private Mono<ByteBuf> delete(List<byte[]> arguments) {
+        if (arguments.isEmpty()) {
+            throw new IllegalArgumentException("wrong number of arguments for 'del' command");
+        }
+        var keys = new ArrayList<CacheEvictRequest.Key>(arguments.size());
+        for (byte[] argument : arguments) {
+            var key = getRequest(argument);
+            keys.add(new CacheEvictRequest.Key(key.getPrimaryCacheKey(), key.getSecondaryCacheKey()));
+        }
+        return cacheManager.removeAndSynchronization(new CacheEvictRequest(keys))
+                .map(count -> Unpooled.wrappedBuffer((":" + count + "\r\n").getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private Mono<ByteBuf> multiGet(List<byte[]> arguments) {
+        if (arguments.isEmpty()) {
+            throw new IllegalArgumentException("wrong number of arguments for 'mget' command");
+        }
+        var request = new CacheMultiGetRequest();
+        request.setKeys(arguments.stream().map(this::getRequest).toList());
+        return cacheManager.getAll(request).map(response -> {
+            var values = response.getValues();
+            var reply = Unpooled.compositeBuffer(values.size() * 3 + 1);
+            reply.addComponent(true, Unpooled.wrappedBuffer(("*" + values.size() + "\r\n").getBytes(StandardCharsets.US_ASCII)));
+            for (Object value : values) {
+                reply.addComponent(true, value == null ? Unpooled.wrappedBuffer(NULL_BULK) : bulk(toBytes(value)));
+            }
+            return reply;
+        });
+    }
+
+    /**
+     * Splits a Redis key into the primary and the secondary key.
+     */
+    private CacheGetRequest getRequest(byte[] key) {
+        String text = new String(key, StandardCharsets.UTF_8);
+        int separator = text.indexOf(keySeparator);
+        if (separator <= 0 || separator + keySeparator.length() == text.length()) {
+            throw new IllegalArgumentException("key must be <key1>" + keySeparator + "<key2>");
+        }
+        String key1 = text.substring(0, separator);
+        String key2 = text.substring(separator + keySeparator.length());
+        if (key1.length() > MAX_KEY_LENGTH || key2.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("key parts must not be longer than " + MAX_KEY_LENGTH + " characters");
+        }
+        return new CacheGetRequest(key1, key2);
+    }
+
+    private byte[] toBytes(Object value) {
+        try {
+            if (value instanceof String text) {
+                return text.getBytes(StandardCharsets.UTF_8);
+            }
+            if (value instanceof JsonValue json) {
+                byte[] bytes = json.getJsonBytes();
+                return bytes.length > 0 && bytes[0] == '"'
+                        ? objectMapper.readValue(bytes, String.class).getBytes(StandardCharsets.UTF_8)
+                        : bytes;
+            }
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cached value cannot be encoded", e);
+        }
+    }
+
+    private static byte[] argument(String name, List<byte[]> arguments, int index, int count) {
+        if (arguments.size() != count) {
+            throw new IllegalArgumentException("wrong number of arguments for '" + name.toLowerCase(Locale.ROOT) + "' command");
+        }
+        return arguments.get(index);
+    }
+
+    private static long parseLong(byte[] value) {
+        try {
+            return Long.parseLong(new String(value, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("value is not an integer or out of range");
+        }
+    }
+
+    private static ByteBuf bulk(byte[] value) {
+        return Unpooled.wrappedBuffer(("$" + value.length + "\r\n").getBytes(StandardCharsets.US_ASCII), value, CRLF);
+    }
+
+    private static ByteBuf error(String message) {
+        return Unpooled.wrappedBuffer(("-ERR " + message.replace('\r', ' ').replace('\n', ' ') + "\r\n")
+                .getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,192 @@
+package com.cache.server.resp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits the RESP stream of a connection into commands.
+ * <p>
+ * A command is either an array of bulk strings, as sent by the Redis clients, or an inline command:
+ * a line of space separated words, as typed in a terminal. All the complete commands of a read are
+ * decoded at once, so a pipeline of commands is handled without waiting for the replies. Empty commands
+ * are skipped. A malformed stream is reported as one {@link RespCommand#protocolError protocol error}
+ * and the rest of the stream is ignored.
+ * </p>
+ * <p>
+ * An array split across reads is decoded as its parts arrive: the arguments already read are kept,
+ * so a large command is not parsed again on every read. A command may not exceed 64 MB.
+ * </p>
+ */
+class RespDecoder extends ByteToMessageDecoder {
+
+    private static final int MAX_LINE = 64 * 1024;
+    private static final int MAX_BULK = 64 * 1024 * 1024;
+    private static final int MAX_COMMAND = 64 * 1024 * 1024;
+    private static final int MAX_ARGUMENTS = 1024 * 1024;
+    private static final int INITIAL_ARGUMENTS = 16;
+    private static final RespCommand EMPTY = new RespCommand("", List.of());
+
+    private final int maxCommand;
+    private boolean failed;
+    /**
+     * The arguments of the array being read, or {@code null} between commands.
+     */
+    private List<byte[]> arguments;
+    private long argumentCount;
+    /**
+     * The length of the bulk string being read, or {@code -1} before its header.
+     */
+    private int bulkLength = -1;
+    private long commandSize;
+
+    RespDecoder() {
+        this(MAX_COMMAND);
+    }
+
+    /**
+     * @param maxCommand the maximum size of a command, in bytes.
+     */
+    RespDecoder(int maxCommand) {
+        this.maxCommand = maxCommand;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        while (!failed && in.isReadable()) {
+            RespCommand command;
+            try {
+                command = arguments != null || in.getByte(in.readerIndex()) == '*' ? readArray(in) : readInline(in);
+            } catch (IllegalArgumentException e) {
+                failed = true;
+                arguments = null;
+                out.add(RespCommand.protocolError(e.getMessage()));
+                break;
+            }
+            if (command == null) {
+                return;
+            }
+            if (command != EMPTY) {
+                out.add(command);
+            }
+        }
+        if (failed) {
+            in.skipBytes(in.readableBytes());
+        }
+    }
+
+    /**
+     * Reads the parts of an array available in the buffer.
+     *
+     * @return the command, or {@code null} if it is not complete yet.
+     */
+    private RespCommand readArray(ByteBuf in) {
+        if (arguments == null) {
+            int start = in.readerIndex();
+            String header = readLine(in);
+            if (header == null) {
+                return null;
+            }
+            long count = parseLength(header, MAX_ARGUMENTS);
+            if (count <= 0) {
+                return EMPTY;
+            }
+            arguments = new ArrayList<>((int) Math.min(count, INITIAL_ARGUMENTS));
+            argumentCount = count;
+            commandSize = in.readerIndex() - start;
+        }
+        while (arguments.size() < argumentCount) {
+            if (bulkLength < 0) {
+                int start = in.readerIndex();
+                String line = readLine(in);
+                if (line == null) {
+                    return null;
+                }
+                if (line.isEmpty() || line.charAt(0) != '$') {
+                    throw new IllegalArgumentException("expected '$', got '" + (line.isEmpty() ? "" : line.charAt(0)) + "'");
+                }
+                int length = (int) parseLength(line, MAX_BULK);
+                if (length < 0) {
+                    throw new IllegalArgumentException("invalid bulk length");
+                }
+                commandSize += in.readerIndex() - start + length + 2L;
+                if (commandSize > maxCommand) {
+                    throw new IllegalArgumentException("command size exceeds " + maxCommand);
+                }
+                bulkLength = length;
+            }
+            if (in.readableBytes() < bulkLength + 2) {
+                return null;
+            }
+            byte[] argument = new byte[bulkLength];
+            in.readBytes(argument);
+            if (in.readByte() != '\r' || in.readByte() != '\n') {
+                throw new IllegalArgumentException("bulk string not terminated by CRLF");
+            }
+            arguments.add(argument);
+            bulkLength = -1;
+        }
+        var command = command(arguments);
+        arguments = null;
+        return command;
+    }
+
+    private static RespCommand readInline(ByteBuf in) {
+        String line = readLine(in);
+        if (line == null) {
+            return null;
+        }
+        List<byte[]> arguments = new ArrayList<>();
+        for (String word : line.trim().split("\\s+")) {
+            if (!word.isEmpty()) {
+                arguments.add(word.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return arguments.isEmpty() ? EMPTY : command(arguments);
+    }
+
+    private static RespCommand command(List<byte[]> arguments) {
+        String name = new String(arguments.get(0), StandardCharsets.UTF_8).toUpperCase(Locale.ROOT);
+        return new RespCommand(name, arguments.subList(1, arguments.size()));
+    }
+
+    /**
+     * Reads a line terminated by LF or CRLF.
+     *
+     * @return the line without the terminator, or {@code null} if it is not complete yet.
+     */
+    private static String readLine(ByteBuf in) {
+        int end = in.indexOf(in.readerIndex(), in.writerIndex(), (byte) '\n');
+        if (end < 0) {
+            if (in.readableBytes() > MAX_LINE) {
+                throw new IllegalArgumentException("too big inline request");
+            }
+            return null;
+        }
+        int length = end - in.readerIndex();
+        if (length > 0 && in.getByte(end - 1) == '\r') {
+            length--;
+        }
+        String line = in.toString(in.readerIndex(), length, StandardCharsets.UTF_8);
+        in.readerIndex(end + 1);
+        return line;
+    }
+
+    private static long parseLength(String line, int max) {
+        long length;
+        try {
+            length = Long.parseLong(line.substring(1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid length '" + line.substring(1) + "'");
+        }
+        if (length > max) {
+            throw new IllegalArgumentException("length " + length + " exceeds " + max);
+        }
+        return length;
+    }
+}
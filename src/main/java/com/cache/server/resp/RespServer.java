@@ -0,0 +1,56 @@
+package com.cache.server.resp;
+
+import com.cache.server.config.CacheProperties;
+import com.cache.server.service.CacheManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.netty.DisposableServer;
+import reactor.netty.tcp.TcpServer;
+
+/**
+ * TCP listener speaking a subset of the Redis protocol (RESP), served next to the REST API,
+ * so that the existing Redis clients can be used without the HTTP and JSON overhead.
+ * <p>
+ * Activated by {@code cache.resp.enable=true}; listens on {@code cache.resp.host}:{@code cache.resp.port}.
+ * The commands of a connection are executed one after another and replied in order; a pipelined batch
+ * is decoded at once and its replies are flushed together. See {@link RespCommandHandler} for the commands.
+ * </p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cache.resp.enable", havingValue = "true")
+public class RespServer {
+
+    private final DisposableServer server;
+
+    public RespServer(CacheManager cacheManager, ObjectMapper objectMapper, CacheProperties cacheProperties) {
+        var properties = cacheProperties.getResp();
+        var handler = new RespCommandHandler(cacheManager, objectMapper, cacheProperties);
+        this.server = TcpServer.create()
+                .host(properties.getHost())
+                .port(properties.getPort())
+                .doOnConnection(connection -> connection.addHandlerLast(new RespDecoder()))
+                .handle((inbound, outbound) -> outbound.send(inbound.receiveObject()
+                        .cast(RespCommand.class)
+                        .takeUntil(command -> RespCommandHandler.QUIT.equals(command.name()) || command.isProtocolError())
+                        .concatMap(handler::handle)))
+                .bindNow();
+        log.info("RESP server listening on {}:{}", properties.getHost(), server.port());
+    }
+
+    /**
+     * @return the port the server listens on.
+     */
+    public int port() {
+        return server.port();
+    }
+
+    @PreDestroy
+    public void close() {
+        server.disposeNow();
+        log.info("RESP server closed");
+    }
+}
@@ -0,0 +1,42 @@
+package com.cache.server.service;
+
+/**
+ * Composite key of a cache entry, made of the primary and the secondary key.
+ */
+final class CacheKey {
+
+    private final String key1;
+    private final String key2;
+    private final int hash;
+
+    CacheKey(String key1, String key2) {
+        this.key1 = key1;
+        this.key2 = key2;
+        this.hash = 31 * key1.hashCode() + key2.hashCode();
+    }
+
+    String getKey1() {
+        return key1;
+    }
+
+    String getKey2() {
+        return key2;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CacheKey that)) return false;
+        return hash == that.hash && key1.equals(that.key1) && key2.equals(that.key2);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "key1=" + key1 + ", key2=" + key2;
+    }
+}
@@ -1,10 +1,18 @@
 package com.cache.server.service;
 
+import com.cache.server.dto.CacheBulkResponse;
+import com.cache.server.dto.CacheEvictRequest;
 import com.cache.server.dto.CacheGetRequest;
+import com.cache.server.dto.CacheMultiGetRequest;
+import com.cache.server.dto.CacheMultiGetResponse;
+import com.cache.server.dto.CacheMultiSetRequest;
 import com.cache.server.dto.CacheResponse;
 import com.cache.server.dto.CacheSetRequest;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface CacheManager {
 
     void set(CacheSetRequest request);
@@ -12,4 +20,26 @@ public interface CacheManager {
     void setAndSynchronization(CacheSetRequest request);
 
     Mono<CacheResponse> get(CacheGetRequest request);
+
+    long remainingLifeTime(CacheGetRequest request);
+
+    void setAll(CacheMultiSetRequest request);
+
+    void setAllAndSynchronization(CacheMultiSetRequest request);
+
+    Mono<CacheMultiGetResponse> getAll(CacheMultiGetRequest request);
+
+    Flux<CacheBulkResponse> setAllAndSynchronization(Flux<CacheSetRequest> requests);
+
+    Mono<Void> store(CacheSetRequest request);
+
+    Mono<Void> storeAll(List<CacheSetRequest> requests);
+
+    Mono<Long> removeAndSynchronization(CacheEvictRequest request);
+
+    void evict(String key1, String key2);
+
+    void evict(CacheEvictRequest request);
+
+    void evictAndSynchronization(CacheEvictRequest request);
 }
@@ -1,5 +1,7 @@
 package com.cache.server.service;
 
+import java.util.List;
+
 /**
  * A generic interface for managing cache operations.
  *
@@ -28,6 +30,40 @@ public interface CacheProvider<T> {
      */
     boolean set(String key1, String key2, T value, Long lifeTime);
 
+    /**
+     * Stores several values in one call. The default implementation stores them one by one.
+     *
+     * @param entries the values to store, in order; a later value of a key replaces an earlier one.
+     */
+    default void setAll(List<Entry<T>> entries) {
+        for (var entry : entries) {
+            if (entry.lifeTime() == null) {
+                set(entry.key1(), entry.key2(), entry.value());
+            } else {
+                set(entry.key1(), entry.key2(), entry.value(), entry.lifeTime());
+            }
+        }
+    }
+
+    /**
+     * Stores a value unless the key already holds one. The default implementation is not atomic:
+     * a value stored concurrently between the check and the write is replaced.
+     *
+     * @param key1     the primary key.
+     * @param key2     the secondary key.
+     * @param value    the value to store.
+     * @param lifeTime the lifetime of the cache entry in seconds.
+     * @return the value already held by the key, or {@code null} if the given value was stored.
+     */
+    default T putIfAbsent(String key1, String key2, T value, Long lifeTime) {
+        var current = get(key1, key2);
+        if (current != null) {
+            return current;
+        }
+        set(key1, key2, value, lifeTime);
+        return null;
+    }
+
     /**
      * Retrieves a value from the cache.
      *
@@ -37,6 +73,18 @@ public interface CacheProvider<T> {
      */
     T get(String key1, String key2);
 
+    /**
+     * Returns the remaining lifetime of a value without counting it as an access.
+     *
+     * @param key1 the primary key.
+     * @param key2 the secondary key.
+     * @return the remaining lifetime in seconds, or {@code -1} if the key does not exist, the value has expired
+     * or the lifetime is not known.
+     */
+    default long remainingLifeTime(String key1, String key2) {
+        return -1L;
+    }
+
     /**
      * Removes all values associated with the primary key from the cache.
      *
@@ -49,6 +97,35 @@ public interface CacheProvider<T> {
      *
      * @param key1 the primary key.
      * @param key2 the secondary key.
+     * @return {@code true} if a value was removed, without counting it as an access.
+     */
+    boolean remove(String key1, String key2);
+
+    /**
+     * Removes a value only if it expires no later than the given time, so that a value written after that
+     * time is kept. The default implementation removes the value unless its known remaining lifetime
+     * goes beyond that time.
+     *
+     * @param key1      the primary key.
+     * @param key2      the secondary key.
+     * @param expiresBy the wall-clock time, in milliseconds.
+     */
+    default void removeIfExpiresBy(String key1, String key2, long expiresBy) {
+        long remaining = remainingLifeTime(key1, key2);
+        if (remaining < 0L || System.currentTimeMillis() + remaining * 1000L <= expiresBy) {
+            remove(key1, key2);
+        }
+    }
+
+    /**
+     * A value to store.
+     *
+     * @param key1     the primary key.
+     * @param key2     the secondary key.
+     * @param value    the value to store.
+     * @param lifeTime the lifetime of the cache entry in seconds, or {@code null} for the default lifetime.
+     * @param <T>      the type of the value.
      */
-    void remove(String key1, String key2);
+    record Entry<T>(String key1, String key2, T value, Long lifeTime) {
+    }
 }
@@ -2,6 +2,8 @@ package com.cache.server.service;
 
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 /**
  * Интерфейс, предоставляющий операции для работы с кешем.
  * Содержит методы для установки и получения данных из кеша.
@@ -41,4 +43,69 @@ public interface CacheService<T> {
      * @return асинхронный результат операции, возвращающий данные типа {@link T}.
      */
     Mono<T> get(String key1, String key2);
+
+    /**
+     * Возвращает оставшееся время жизни значения в кеше в памяти.
+     *
+     * @param key1 первый ключ для поиска в кеше.
+     * @param key2 второй ключ для поиска в кеше.
+     * @return оставшееся время жизни в секундах или {@code -1}, если значения нет или время жизни неизвестно.
+     */
+    long remainingLifeTime(String key1, String key2);
+
+    /**
+     * Сохраняет несколько значений за один проход: значения записываются в кеш в памяти,
+     * а затем сохраняются одним пакетом.
+     *
+     * @param entries значения для сохранения; время жизни {@code null} означает время жизни по умолчанию.
+     * @return асинхронный результат операции, завершающийся без значения.
+     */
+    Mono<Void> setAll(List<CacheProvider.Entry<T>> entries);
+
+    /**
+     * Извлекает несколько значений за один проход.
+     *
+     * @param keys ключи для поиска в кеше.
+     * @return значения в порядке ключей; для ненайденных ключей на их месте {@code null}.
+     */
+    Mono<List<T>> getAll(List<Key> keys);
+
+    /**
+     * Удаляет значение из кеша в памяти и из хранилища: из базы данных или, если он включен,
+     * записью об удалении в журнал упреждающей записи.
+     *
+     * @param key1 первый ключ для поиска в кеше.
+     * @param key2 второй ключ для поиска в кеше.
+     * @return {@code true}, если значение было в кеше в памяти.
+     */
+    Mono<Boolean> remove(String key1, String key2);
+
+    /**
+     * Удаляет значение из кеша в памяти, не затрагивая базу данных.
+     * Используется, когда запись уже удалена из базы данных, например как просроченная.
+     *
+     * @param key1 первый ключ для поиска в кеше.
+     * @param key2 второй ключ для поиска в кеше.
+     */
+    void evict(String key1, String key2);
+
+    /**
+     * Удаляет значение из кеша в памяти, только если оно истекает не позже указанного времени.
+     * Используется для записей, удаленных из базы данных как просроченные: значение, записанное
+     * после истечения записи, истекает позже и сохраняется.
+     *
+     * @param key1      первый ключ для поиска в кеше.
+     * @param key2      второй ключ для поиска в кеше.
+     * @param expiresBy время истечения удаленной записи в миллисекундах.
+     */
+    void evict(String key1, String key2, long expiresBy);
+
+    /**
+     * Пара ключей для поиска в кеше.
+     *
+     * @param key1 первый ключ.
+     * @param key2 второй ключ.
+     */
+    record Key(String key1, String key2) {
+    }
 }
@@ -1,21 +1,47 @@
 package com.cache.server.service;
 
+import com.cache.server.dto.CacheEvictRequest;
+import com.cache.server.dto.CacheMultiSetRequest;
 import com.cache.server.dto.CacheSetRequest;
 import com.cache.server.kafka.ProducerSynchronization;
+import com.cache.server.kafka.ReplicationCoalescer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CacheSynchronization {
 
     private final ProducerSynchronization kafkaProducerSynchronization;
+    private final Optional<ReplicationCoalescer> replicationCoalescer;
 
+    /**
+     * Sends an update to the other nodes, through the coalescing buffer if {@code kafka.coalescing.enable=true}.
+     */
     public void writeReplicas(CacheSetRequest request) {
-        log.info("Write replicas. key1={}. key2={}", request.getPrimaryCacheKey(), request.getSecondaryCacheKey());
-        kafkaProducerSynchronization.sendMessage(request);
+        log.debug("Write replicas. key1={}. key2={}", request.getPrimaryCacheKey(), request.getSecondaryCacheKey());
+        replicationCoalescer.ifPresentOrElse(coalescer -> coalescer.submit(request),
+                () -> kafkaProducerSynchronization.sendMessage(request));
+    }
+
+    /**
+     * Sends a batch of updates to the other nodes as separate updates, so that each one is ordered with the other
+     * updates of its key; the producer batches and compresses them.
+     */
+    public void writeReplicas(CacheMultiSetRequest request) {
+        log.debug("Write replicas. entries={}", request.getEntries().size());
+        request.getEntries().forEach(this::writeReplicas);
+    }
+
+    public void evictReplicas(CacheEvictRequest request) {
+        log.info("Evict replicas. keys={}", request.getKeys().size());
+        replicationCoalescer.ifPresent(coalescer -> request.getKeys()
+                .forEach(key -> coalescer.discard(key.getPrimaryCacheKey(), key.getSecondaryCacheKey())));
+        kafkaProducerSynchronization.sendEviction(request);
     }
 
 }
@@ -8,6 +8,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Service
@@ -15,42 +19,95 @@ public class DataBaseCache implements CacheProvider<String> {
 
     private final long lifeTime;
     private final CacheRepository cacheRepository;
+    private final Optional<DataBaseWriteBehind> writeBehind;
 
-    public DataBaseCache(CacheRepository cacheRepository, CacheProperties cacheProperties) {
+    public DataBaseCache(CacheRepository cacheRepository, CacheProperties cacheProperties,
+                         Optional<DataBaseWriteBehind> writeBehind) {
         this.lifeTime = cacheProperties.getDefaultLifeTime() != null ? cacheProperties.getDefaultLifeTime() : 604_800L;
         this.cacheRepository = cacheRepository;
+        this.writeBehind = writeBehind;
     }
 
     @Override
-    @Transactional
     public boolean set(String key1, String key2, String value) {
         return set(key1, key2, value, lifeTime);
     }
 
+    /**
+     * Inserts or replaces the row of the key, or adds the value to the write-behind buffer if {@code cache.db.write-behind.enable=true}.
+     */
     @Override
-    @Transactional
     public boolean set(String key1, String key2, String value, Long lifeTime) {
         log.info("Setting value: key1={}, key2={}, lifeTime={} seconds", key1, key2, lifeTime);
-        cacheRepository.save(cacheEntityBuild(key1, key2, value, lifeTime));
+        var entity = cacheEntityBuild(key1, key2, value, lifeTime);
+        if (writeBehind.isPresent()) {
+            writeBehind.get().submit(entity);
+        } else {
+            cacheRepository.upsert(entity);
+        }
         return true;
     }
 
+    /**
+     * Inserts or replaces the rows of all the keys in one transaction and one JDBC batch, or adds them
+     * to the write-behind buffer if {@code cache.db.write-behind.enable=true}. A repeated key is written once,
+     * with its last value, because a batched upsert cannot touch the same row twice. The rows are written
+     * in key order, so that two concurrent batches lock their common rows in the same order.
+     */
+    @Override
+    @Transactional
+    public void setAll(List<Entry<String>> entries) {
+        log.info("Setting {} values", entries.size());
+        var latest = new LinkedHashMap<CacheKey, Entry<String>>();
+        entries.forEach(entry -> latest.put(new CacheKey(entry.key1(), entry.key2()), entry));
+        var entities = latest.values().stream()
+                .map(entry -> cacheEntityBuild(entry.key1(), entry.key2(), entry.value(),
+                        entry.lifeTime() != null ? entry.lifeTime() : lifeTime))
+                .sorted(Comparator.comparing(CacheEntity::getPrimaryCacheKey).thenComparing(CacheEntity::getSecondaryCacheKey))
+                .toList();
+        if (writeBehind.isPresent()) {
+            entities.forEach(writeBehind.get()::submit);
+        } else if (!entities.isEmpty()) {
+            cacheRepository.upsertAll(entities, entities.size());
+        }
+    }
+
     @Override
     @Transactional(readOnly = true)
     public String get(String key1, String key2) {
-        return cacheRepository.findByPrimaryCacheKeyAndSecondaryCacheKeyOrderByIdDesc(key1, key2).getCacheValue();
+        var pending = writeBehind.map(buffer -> buffer.pending(key1, key2)).orElse(null);
+        if (pending != null) {
+            return pending;
+        }
+        return cacheRepository.findByPrimaryCacheKeyAndSecondaryCacheKey(key1, key2).getCacheValue();
+    }
+
+    /**
+     * Returns the row of the key, or its pending write if {@code cache.db.write-behind.enable=true}.
+     *
+     * @param key1 the primary key.
+     * @param key2 the secondary key.
+     * @return the entry, or {@code null} if the key does not exist or has expired.
+     */
+    @Transactional(readOnly = true)
+    public CacheEntity getEntry(String key1, String key2) {
+        var entity = writeBehind.map(buffer -> buffer.pendingEntity(key1, key2))
+                .orElseGet(() -> cacheRepository.findByPrimaryCacheKeyAndSecondaryCacheKey(key1, key2));
+        return entity != null && entity.getExpired().isAfter(LocalDateTime.now()) ? entity : null;
     }
 
     @Override
     @Transactional
     public void remove(String key1) {
+        writeBehind.ifPresent(buffer -> buffer.discard(key1, null));
         cacheRepository.deleteAllByPrimaryCacheKey(key1);
     }
 
     @Override
     @Transactional
-    public void remove(String key1, String key2) {
-        cacheRepository.deleteAllByPrimaryCacheKeyAndSecondaryCacheKey(key1, key2);
+    public boolean remove(String key1, String key2) {
+        writeBehind.ifPresent(buffer -> buffer.discard(key1, key2));
+        return cacheRepository.deleteAllByPrimaryCacheKeyAndSecondaryCacheKey(key1, key2) > 0;
     }
 
     private CacheEntity cacheEntityBuild(String key1, String key2, String value, Long lifeTime) {
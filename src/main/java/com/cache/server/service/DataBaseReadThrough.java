@@ -0,0 +1,118 @@
+package com.cache.server.service;
+
+import com.cache.server.config.CacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads the values missing from the memory cache from the database and puts them back into the memory cache.
+ * <p>
+ * A miss happens for entries evicted from the memory cache or not loaded yet by the warm-up. The lookup runs
+ * on the bounded elastic scheduler. Concurrent misses of a key share one lookup, so a hot key that has been
+ * evicted is read from the database once rather than once per request. A loaded value never replaces
+ * a value written meanwhile, and a lookup that overlaps the removal of its key does not keep its value.
+ * </p>
+ * <p>
+ * Activated by {@code cache.read-through.enable=true}. With the write-ahead log the values are not written
+ * to the database, so there is nothing to read through.
+ * </p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cache.read-through.enable", havingValue = "true")
+public class DataBaseReadThrough {
+
+    private final CacheProvider<Object> memoryCache;
+    private final DataBaseCache dataBaseCache;
+    private final boolean jsonValues;
+    private final ConcurrentHashMap<CacheKey, Lookup> inFlight = new ConcurrentHashMap<>();
+
+    public DataBaseReadThrough(CacheProvider<Object> memoryCache, DataBaseCache dataBaseCache,
+                               CacheProperties cacheProperties) {
+        this.memoryCache = memoryCache;
+        this.dataBaseCache = dataBaseCache;
+        this.jsonValues = cacheProperties.getMemory().getValueFormat() == CacheProperties.ValueFormat.JSON;
+    }
+
+    /**
+     * Reads a value from the database and stores it in the memory cache for the rest of its lifetime.
+     * Joins the lookup of the key already in progress, if any.
+     *
+     * @param key1 the primary key.
+     * @param key2 the secondary key.
+     * @return the value, or an empty result if the key does not exist or has expired.
+     */
+    public Mono<Object> load(String key1, String key2) {
+        var key = new CacheKey(key1, key2);
+        var lookup = inFlight.computeIfAbsent(key, k -> {
+            var created = new Lookup();
+            created.result = Mono.fromCallable(() -> fetch(k, created))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .toFuture();
+            return created;
+        });
+        lookup.result.whenComplete((value, e) -> inFlight.remove(key, lookup));
+        // a cancelled request must not cancel the lookup shared with the other requests
+        return Mono.fromFuture(lookup.result, true);
+    }
+
+    /**
+     * Detaches the lookup of a key in progress, if any, so that the value it read does not stay in the memory
+     * cache. Must be called after the row has been deleted and before the key is removed from the memory cache.
+     *
+     * @param key1 the primary key.
+     * @param key2 the secondary key.
+     */
+    public void invalidate(String key1, String key2) {
+        var lookup = inFlight.remove(new CacheKey(key1, key2));
+        if (lookup != null) {
+            lookup.invalidated = true;
+        }
+    }
+
+    /**
+     * Returns the number of lookups in progress.
+     *
+     * @return the number of keys being read from the database.
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private Object fetch(CacheKey key, Lookup lookup) {
+        var entity = dataBaseCache.getEntry(key.getKey1(), key.getKey2());
+        if (entity == null) {
+            return null;
+        }
+        var lifeTime = Duration.between(LocalDateTime.now(), entity.getExpired()).toSeconds();
+        if (lifeTime < 1) {
+            return null;
+        }
+        var value = jsonValues ? JsonValue.fromText(entity.getCacheValue()) : entity.getCacheValue();
+        // a value written while the row was being read is newer than the row
+        var current = memoryCache.putIfAbsent(key.getKey1(), key.getKey2(), value, lifeTime);
+        if (current != null) {
+            return current;
+        }
+        if (lookup.invalidated) {
+            // the key was removed while the row was being read; a later write is reloaded on the next miss
+            memoryCache.remove(key.getKey1(), key.getKey2());
+            return null;
+        }
+        log.debug("Read through: key1={}, key2={}, lifeTime={} seconds", key.getKey1(), key.getKey2(), lifeTime);
+        return value;
+    }
+
+    private static final class Lookup {
+        private CompletableFuture<Object> result;
+        private volatile boolean invalidated;
+    }
+}
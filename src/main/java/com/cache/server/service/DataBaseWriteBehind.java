@@ -0,0 +1,268 @@
+package com.cache.server.service;
+
+import com.cache.server.config.CacheProperties;
+import com.cache.server.repository.CacheEntity;
+import com.cache.server.repository.CacheRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffers the writes to the database and flushes them as JDBC batch upserts.
+ * <p>
+ * A write is acknowledged as soon as it is in the buffer. The buffer is flushed by a background thread
+ * once it holds {@code batch-size} entries or {@code flush-interval} milliseconds after the previous flush.
+ * Repeated writes of a key before a flush replace each other, so only the latest value is written.
+ * The buffer is bounded: if it is full, writers wait until the next flush frees space.
+ * </p>
+ * <p>
+ * Activated by {@code cache.db.write-behind.enable=true}. A batch stays visible to the lookups until its
+ * transaction has committed. A failed batch is retried with the next flush, which is delayed by twice
+ * the previous delay, up to 30 seconds. The pending writes are flushed on close.
+ * </p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cache.db.write-behind.enable", havingValue = "true")
+public class DataBaseWriteBehind implements AutoCloseable {
+
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
+
+    private final CacheRepository cacheRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushInterval;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushRequested = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Thread flusher;
+    private LinkedHashMap<CacheKey, CacheEntity> pending = new LinkedHashMap<>();
+    private LinkedHashMap<CacheKey, CacheEntity> inFlight = new LinkedHashMap<>();
+    private volatile boolean closed;
+
+    public DataBaseWriteBehind(CacheRepository cacheRepository, PlatformTransactionManager transactionManager,
+                               CacheProperties cacheProperties) {
+        var properties = cacheProperties.getDb().getWriteBehind();
+        this.cacheRepository = cacheRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.capacity = properties.getCapacity();
+        this.batchSize = properties.getBatchSize();
+        this.flushInterval = TimeUnit.MILLISECONDS.toNanos(properties.getFlushInterval());
+        this.flusher = new Thread(this::run, "db-write-behind");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+        log.debug("Initializing DataBaseWriteBehind: capacity={}, batchSize={}, flushInterval={} ms",
+                capacity, batchSize, properties.getFlushInterval());
+    }
+
+    /**
+     * Adds an entry to the buffer, replacing the pending entry of the same key.
+     * Waits if the buffer is full.
+     *
+     * @param entity the entry to write.
+     * @throws IllegalStateException if the buffer is closed.
+     */
+    public void submit(CacheEntity entity) {
+        var key = new CacheKey(entity.getPrimaryCacheKey(), entity.getSecondaryCacheKey());
+        lock.lock();
+        try {
+            while (!closed && pending.size() >= capacity && !pending.containsKey(key)) {
+                flushRequested.signal();
+                notFull.awaitUninterruptibly();
+            }
+            if (closed) {
+                throw new IllegalStateException("Write-behind buffer is closed");
+            }
+            pending.remove(key);
+            pending.put(key, entity);
+            if (pending.size() >= batchSize) {
+                flushRequested.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the value of a key that has not been flushed yet.
+     *
+     * @param key1 the primary key.
+     * @param key2 the secondary key.
+     * @return the pending value, or {@code null} if there is none.
+     */
+    public String pending(String key1, String key2) {
+        var entity = pendingEntity(key1, key2);
+        return entity != null ? entity.getCacheValue() : null;
+    }
+
+    /**
+     * Returns the entry of a key that has not been flushed yet, including a flush in progress.
+     *
+     * @param key1 the primary key.
+     * @param key2 the secondary key.
+     * @return the pending entry, or {@code null} if there is none.
+     */
+    public CacheEntity pendingEntity(String key1, String key2) {
+        lock.lock();
+        try {
+            var key = new CacheKey(key1, key2);
+            var entity = pending.get(key);
+            return entity != null ? entity : inFlight.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the pending writes of a key after the flush in progress, if any, has completed, so that
+     * a delete issued afterwards is not overtaken by a buffered insert.
+     *
+     * @param key1 the primary key.
+     * @param key2 the secondary key, or {@code null} for all secondary keys.
+     */
+    public void discard(String key1, String key2) {
+        flushLock.lock();
+        lock.lock();
+        try {
+            if (key2 != null) {
+                pending.remove(new CacheKey(key1, key2));
+            } else {
+                pending.keySet().removeIf(key -> key.getKey1().equals(key1));
+            }
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Flushes the pending writes and stops the background thread.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        lock.lock();
+        try {
+            closed = true;
+            flushRequested.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        flusher.join();
+        log.info("DataBaseWriteBehind closed");
+    }
+
+    private void run() {
+        long nextFlush = System.nanoTime() + flushInterval;
+        long retryDelay = 0L;
+        while (true) {
+            lock.lock();
+            try {
+                long wait;
+                while (!closed && (retryDelay > 0L || pending.size() < batchSize)
+                        && (wait = nextFlush - System.nanoTime()) > 0L) {
+                    flushRequested.awaitNanos(wait);
+                }
+                if (closed && pending.isEmpty()) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            boolean flushed;
+            flushLock.lock();
+            try {
+                flushed = flush(drain());
+            } finally {
+                flushLock.unlock();
+            }
+            retryDelay = flushed ? 0L : Math.min(Math.max(2 * retryDelay, flushInterval),
+                    TimeUnit.MILLISECONDS.toNanos(MAX_RETRY_DELAY_MS));
+            nextFlush = System.nanoTime() + (flushed ? flushInterval : retryDelay);
+        }
+    }
+
+    private List<CacheEntity> drain() {
+        lock.lock();
+        try {
+            var batch = new ArrayList<>(pending.values());
+            inFlight = pending;
+            pending = new LinkedHashMap<>();
+            notFull.signalAll();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes a batch in one transaction.
+     *
+     * @return {@code false} if the batch failed and has been returned to the buffer.
+     */
+    private boolean flush(List<CacheEntity> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> cacheRepository.upsertAll(batch, batchSize));
+            log.debug("Flushed {} entries to the database", batch.size());
+            complete();
+            return true;
+        } catch (RuntimeException e) {
+            if (closed) {
+                log.error("Error flushing {} entries to the database on close, they are lost", batch.size(), e);
+                complete();
+                return true;
+            }
+            log.error("Error flushing {} entries to the database, they will be retried", batch.size(), e);
+            requeue(batch);
+            return false;
+        }
+    }
+
+    private void complete() {
+        lock.lock();
+        try {
+            inFlight = new LinkedHashMap<>();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a failed batch to the buffer, unless the keys have been written again since.
+     */
+    private void requeue(List<CacheEntity> batch) {
+        lock.lock();
+        try {
+            var merged = new LinkedHashMap<CacheKey, CacheEntity>();
+            for (var entity : batch) {
+                merged.put(new CacheKey(entity.getPrimaryCacheKey(), entity.getSecondaryCacheKey()), entity);
+            }
+            pending.forEach((key, entity) -> {
+                merged.remove(key);
+                merged.put(key, entity);
+            });
+            pending = merged;
+            inFlight = new LinkedHashMap<>();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -1,19 +1,30 @@
 package com.cache.server.service;
 
+import com.cache.server.config.CacheProperties;
+import com.cache.server.dto.CacheBulkResponse;
+import com.cache.server.dto.CacheEvictRequest;
 import com.cache.server.dto.CacheGetRequest;
+import com.cache.server.dto.CacheMultiGetRequest;
+import com.cache.server.dto.CacheMultiGetResponse;
+import com.cache.server.dto.CacheMultiSetRequest;
 import com.cache.server.dto.CacheResponse;
 import com.cache.server.dto.CacheSetRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
 @Service
 @RequiredArgsConstructor
 public class DefaultCacheManager implements CacheManager {
 
     private final CacheService<Object> cacheService;
     private final CacheSynchronization cacheSynchronization;
+    private final CacheProperties cacheProperties;
 
     @Override
     public void set(CacheSetRequest request) {
@@ -28,12 +39,132 @@ public class DefaultCacheManager implements CacheManager {
         cacheSynchronization.writeReplicas(request);
     }
 
+    /**
+     * Сохраняет данные в кеш и передает их на другие узлы, как {@link #setAndSynchronization},
+     * но завершается только после сохранения данных в кеш в памяти и в хранилище.
+     *
+     * @param request объект, содержащий данные для установки в кеш.
+     * @return асинхронная операция, завершающаяся после сохранения.
+     */
+    @Override
+    public Mono<Void> store(CacheSetRequest request) {
+        return requestSettingAdapter(request)
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnSuccess(v -> cacheSynchronization.writeReplicas(request));
+    }
+
+    /**
+     * Сохраняет пакет записей в кеш в памяти и одним пакетом в хранилище, не передавая их на другие узлы.
+     * Завершается только после сохранения, поэтому применяет полученные с других узлов записи
+     * не быстрее, чем они сохраняются.
+     *
+     * @param requests записи для установки в кеш.
+     * @return асинхронная операция, завершающаяся после сохранения.
+     */
+    @Override
+    public Mono<Void> storeAll(List<CacheSetRequest> requests) {
+        return requestsSettingAdapter(requests)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
     @Override
     public Mono<CacheResponse> get(CacheGetRequest request) {
         return cacheService.get(request.getPrimaryCacheKey(), request.getSecondaryCacheKey())
                 .map(CacheResponse::new);
     }
 
+    @Override
+    public long remainingLifeTime(CacheGetRequest request) {
+        return cacheService.remainingLifeTime(request.getPrimaryCacheKey(), request.getSecondaryCacheKey());
+    }
+
+    @Override
+    public void setAll(CacheMultiSetRequest request) {
+        requestsSettingAdapter(request.getEntries())
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe();
+    }
+
+    @Override
+    public void setAllAndSynchronization(CacheMultiSetRequest request) {
+        setAll(request);
+        cacheSynchronization.writeReplicas(request);
+    }
+
+    @Override
+    public Mono<CacheMultiGetResponse> getAll(CacheMultiGetRequest request) {
+        return cacheService.getAll(request.getKeys().stream()
+                        .map(key -> new CacheService.Key(key.getPrimaryCacheKey(), key.getSecondaryCacheKey()))
+                        .toList())
+                .map(CacheMultiGetResponse::new);
+    }
+
+    /**
+     * Сохраняет поток записей пакетами по {@code cache.bulk.batch-size} записей.
+     * Следующий пакет запрашивается у потока только после того, как предыдущий сохранен в базу данных
+     * и передан на другие узлы, поэтому скорость загрузки ограничена скоростью сохранения.
+     * Ошибка в записи прерывает загрузку; подтвержденные до нее пакеты остаются сохраненными.
+     *
+     * @param requests поток записей.
+     * @return поток подтверждений, по одному на пакет.
+     */
+    @Override
+    public Flux<CacheBulkResponse> setAllAndSynchronization(Flux<CacheSetRequest> requests) {
+        AtomicLong batches = new AtomicLong();
+        AtomicLong total = new AtomicLong();
+        return requests
+                .buffer(cacheProperties.getBulk().getBatchSize())
+                .concatMap(batch -> requestsSettingAdapter(batch)
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .then(Mono.fromCallable(() -> {
+                            cacheSynchronization.writeReplicas(new CacheMultiSetRequest(batch));
+                            return new CacheBulkResponse(batches.getAndIncrement(), batch.size(), total.addAndGet(batch.size()));
+                        })), 1);
+    }
+
+    /**
+     * Удаляет значения из кеша в памяти и из хранилища, после чего удаляет их из кеша в памяти других узлов.
+     *
+     * @param request ключи удаляемых значений.
+     * @return число значений, которые были в кеше в памяти.
+     */
+    @Override
+    public Mono<Long> removeAndSynchronization(CacheEvictRequest request) {
+        return Flux.fromIterable(request.getKeys())
+                .concatMap(key -> cacheService.remove(key.getPrimaryCacheKey(), key.getSecondaryCacheKey()))
+                .filter(Boolean::booleanValue)
+                .count()
+                .doOnSuccess(count -> cacheSynchronization.evictReplicas(request));
+    }
+
+    @Override
+    public void evict(String key1, String key2) {
+        cacheService.evict(key1, key2);
+    }
+
+    /**
+     * Удаляет значения из кеша в памяти. Значение ключа с временем истечения удаляется, только если
+     * оно истекает не позже этого времени, то есть не было перезаписано.
+     *
+     * @param request ключи удаляемых значений.
+     */
+    @Override
+    public void evict(CacheEvictRequest request) {
+        request.getKeys().forEach(key -> {
+            if (key.getExpired() == null) {
+                cacheService.evict(key.getPrimaryCacheKey(), key.getSecondaryCacheKey());
+            } else {
+                cacheService.evict(key.getPrimaryCacheKey(), key.getSecondaryCacheKey(), key.getExpired());
+            }
+        });
+    }
+
+    @Override
+    public void evictAndSynchronization(CacheEvictRequest request) {
+        evict(request);
+        cacheSynchronization.evictReplicas(request);
+    }
+
     /**
      * Адаптирует запрос на установку данных в кеш с учетом времени истечения.
      * Если время истечения не указано, данные сохраняются без срока действия.
@@ -47,4 +178,17 @@ public class DefaultCacheManager implements CacheManager {
         }
         return cacheService.set(request.getPrimaryCacheKey(), request.getSecondaryCacheKey(), request.getExpired(), request.getValue());
     }
+
+    /**
+     * Адаптирует пакет запросов на установку данных в кеш для сохранения одним пакетом.
+     *
+     * @param requests запросы на установку данных в кеш.
+     * @return асинхронная операция по установке данных в кеш.
+     */
+    private Mono<Void> requestsSettingAdapter(List<CacheSetRequest> requests) {
+        return cacheService.setAll(requests.stream()
+                .map(request -> new CacheProvider.Entry<>(request.getPrimaryCacheKey(), request.getSecondaryCacheKey(),
+                        request.getValue(), request.getExpired()))
+                .toList());
+    }
 }
@@ -1,41 +1,245 @@
 package com.cache.server.service;
 
-import com.cache.server.exception.CachedValueNotFoundException;
+import com.cache.server.config.CacheProperties;
+import com.cache.server.service.wal.WriteAheadLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class DefaultCacheService implements CacheService<Object> {
 
     private final CacheProvider<Object> memoryCache;
-    private final CacheProvider<String> dataBaseCache;
+    private final DataBaseCache dataBaseCache;
+    private final CacheProperties cacheProperties;
+    private final ObjectMapper objectMapper;
+    private final Optional<WriteAheadLog> writeAheadLog;
+    private final Optional<DataBaseReadThrough> readThrough;
+    private final Optional<NegativeCache> negativeCache;
 
     @Override
     public Mono<Void> set(String key1, String key2, Object value) {
         return Mono.just(value)
-                .doOnNext(o -> memoryCache.set(key1, key2, o))
-                .map(o -> dataBaseCache.set(key1, key2, String.valueOf(o)))
+                .map(this::toStoredValue)
+                .doOnNext(o -> store(key1, key2, o, null))
+                .flatMap(o -> persist(key1, key2, o, null))
                 .then();
     }
 
     @Override
     public Mono<Void> set(String key1, String key2, Long expired, Object value) {
         return Mono.just(value)
-                .doOnNext(o -> memoryCache.set(key1, key2, o, expired))
-                .map(o -> dataBaseCache.set(key1, key2, String.valueOf(o), expired))
+                .map(this::toStoredValue)
+                .doOnNext(o -> store(key1, key2, o, expired))
+                .flatMap(o -> persist(key1, key2, o, expired))
                 .then();
     }
 
+    /**
+     * Converts and stores all the values in memory, then makes them durable as one batch:
+     * one JDBC batch, or one append per value to the write-ahead log, awaited together.
+     */
+    @Override
+    public Mono<Void> setAll(List<CacheProvider.Entry<Object>> entries) {
+        return Mono.fromCallable(() -> entries.stream()
+                        .map(entry -> new CacheProvider.Entry<>(entry.key1(), entry.key2(),
+                                toStoredValue(entry.value()), entry.lifeTime()))
+                        .toList())
+                .doOnNext(stored -> stored.forEach(entry -> store(entry.key1(), entry.key2(), entry.value(), entry.lifeTime())))
+                .flatMap(this::persistAll)
+                .then();
+    }
+
+    /**
+     * Reads a value from the memory cache. On a miss the value is read from the database
+     * if {@code cache.read-through.enable=true}, unless the key has recently been found missing there.
+     * A missing value is an empty result rather than an error.
+     */
     @Override
     public Mono<Object> get(String key1, String key2) {
         var result = memoryCache.get(key1, key2);
-        if (result == null) {
-            var message = String.format("Value from cached key1=%s, key2=%s not found", key1, key2);
-            throw new CachedValueNotFoundException(message);
+        if (result != null) {
+            return Mono.just(result);
+        }
+        return readThrough(key1, key2);
+    }
+
+    @Override
+    public long remainingLifeTime(String key1, String key2) {
+        return memoryCache.remainingLifeTime(key1, key2);
+    }
+
+    /**
+     * Reads all the values from the memory cache in one pass, then reads the misses through
+     * to the database concurrently, if {@code cache.read-through.enable=true}.
+     */
+    @Override
+    public Mono<List<Object>> getAll(List<Key> keys) {
+        List<Object> values = new ArrayList<>(keys.size());
+        var misses = new ArrayList<Integer>();
+        for (int i = 0; i < keys.size(); i++) {
+            var key = keys.get(i);
+            var value = memoryCache.get(key.key1(), key.key2());
+            values.add(value);
+            if (value == null) {
+                misses.add(i);
+            }
+        }
+        if (misses.isEmpty() || readThrough.isEmpty()) {
+            return Mono.just(values);
+        }
+        return Flux.fromIterable(misses)
+                .flatMap(i -> readThrough(keys.get(i).key1(), keys.get(i).key2()).map(value -> Map.entry(i, value)))
+                .doOnNext(found -> values.set(found.getKey(), found.getValue()))
+                .then(Mono.just(values));
+    }
+
+    /**
+     * Removes a value from memory, then from the database, or appends an already expired entry
+     * to the write-ahead log, which removes the key on replay.
+     */
+    @Override
+    public Mono<Boolean> remove(String key1, String key2) {
+        boolean present = memoryCache.remove(key1, key2);
+        if (writeAheadLog.isPresent()) {
+            var entry = new WriteAheadLog.Entry(key1, key2, new byte[0], 0L);
+            return Mono.fromFuture(writeAheadLog.get().append(entry)).thenReturn(present);
+        }
+        return Mono.fromRunnable(() -> {
+                    dataBaseCache.remove(key1, key2);
+                    // a read-through that read the row before it was deleted may have stored it again
+                    readThrough.ifPresent(lookups -> {
+                        lookups.invalidate(key1, key2);
+                        memoryCache.remove(key1, key2);
+                    });
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .thenReturn(present);
+    }
+
+    @Override
+    public void evict(String key1, String key2) {
+        memoryCache.remove(key1, key2);
+    }
+
+    @Override
+    public void evict(String key1, String key2, long expiresBy) {
+        memoryCache.removeIfExpiresBy(key1, key2, expiresBy);
+    }
+
+    private Mono<Object> readThrough(String key1, String key2) {
+        if (readThrough.isEmpty() || negativeCache.map(cache -> cache.isMissing(key1, key2)).orElse(false)) {
+            return Mono.empty();
+        }
+        return readThrough.get().load(key1, key2)
+                .switchIfEmpty(Mono.fromRunnable(() -> recordMissing(key1, key2)));
+    }
+
+    private void store(String key1, String key2, Object value, Long lifeTime) {
+        negativeCache.ifPresent(cache -> cache.remove(key1, key2));
+        if (lifeTime == null) {
+            memoryCache.set(key1, key2, value);
+        } else {
+            memoryCache.set(key1, key2, value, lifeTime);
+        }
+    }
+
+    /**
+     * Records a key missing from the database, unless it has been written during the lookup.
+     */
+    private void recordMissing(String key1, String key2) {
+        negativeCache.ifPresent(cache -> {
+            if (memoryCache.get(key1, key2) == null) {
+                cache.addMissing(key1, key2);
+            }
+        });
+    }
+
+    /**
+     * Converts a value to the form configured by {@code cache.memory.value-format}.
+     * Encoded values at least {@code cache.compression.threshold} bytes long are compressed if enabled.
+     * Values that arrive already encoded, as replicated ones do, are not encoded again.
+     */
+    private Object toStoredValue(Object value) {
+        if (cacheProperties.getMemory().getValueFormat() != CacheProperties.ValueFormat.JSON) {
+            return value instanceof JsonValue json ? decode(json) : value;
+        }
+        var json = value instanceof JsonValue encoded ? encoded : JsonValue.encode(objectMapper, value);
+        var compression = cacheProperties.getCompression();
+        if (compression.isEnable() && json.getBytes().length >= compression.getThreshold()) {
+            return json.compress();
+        }
+        return json;
+    }
+
+    /**
+     * Restores the object form of an encoded value, for {@code cache.memory.value-format=object}.
+     */
+    private Object decode(JsonValue json) {
+        try {
+            return objectMapper.readValue(json.getJsonBytes(), Object.class);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Value cannot be deserialized from JSON", e);
         }
-        return Mono.just(result)
-                .thenReturn(result);
+    }
+
+    /**
+     * Makes a stored value durable: appends it to the write-ahead log if it is enabled,
+     * otherwise saves it to the database.
+     *
+     * @param lifeTime the lifetime in seconds, or {@code null} for the default one.
+     */
+    private Mono<?> persist(String key1, String key2, Object value, Long lifeTime) {
+        if (writeAheadLog.isPresent()) {
+            long seconds = lifeTime != null ? lifeTime : defaultLifeTime();
+            var entry = new WriteAheadLog.Entry(key1, key2, toLogValue(value), System.currentTimeMillis() + seconds * 1000L);
+            return Mono.fromFuture(writeAheadLog.get().append(entry));
+        }
+        return Mono.fromCallable(() -> lifeTime == null
+                ? dataBaseCache.set(key1, key2, toDataBaseValue(value))
+                : dataBaseCache.set(key1, key2, toDataBaseValue(value), lifeTime));
+    }
+
+    /**
+     * Makes a batch of stored values durable, see {@link #persist}.
+     */
+    private Mono<?> persistAll(List<CacheProvider.Entry<Object>> entries) {
+        if (writeAheadLog.isPresent()) {
+            return Flux.fromIterable(entries)
+                    .flatMap(entry -> persist(entry.key1(), entry.key2(), entry.value(), entry.lifeTime()))
+                    .then();
+        }
+        var rows = entries.stream()
+                .map(entry -> new CacheProvider.Entry<>(entry.key1(), entry.key2(), toDataBaseValue(entry.value()), entry.lifeTime()))
+                .toList();
+        return Mono.fromRunnable(() -> dataBaseCache.setAll(rows));
+    }
+
+    private long defaultLifeTime() {
+        return cacheProperties.getDefaultLifeTime() != null ? cacheProperties.getDefaultLifeTime() : 604_800L;
+    }
+
+    /**
+     * Values are written to the log as JSON, encoded values as they are stored.
+     */
+    private byte[] toLogValue(Object value) {
+        return value instanceof JsonValue json ? json.getBytes() : JsonValue.encode(objectMapper, value).getBytes();
+    }
+
+    /**
+     * Encoded values are written to the database in their text form, compressed ones stay compressed.
+     */
+    private static String toDataBaseValue(Object value) {
+        return value instanceof JsonValue json ? json.toText() : String.valueOf(value);
     }
 }
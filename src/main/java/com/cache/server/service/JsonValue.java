@@ -0,0 +1,223 @@
+package com.cache.server.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A cached value kept as an encoded UTF-8 JSON document.
+ * <p>
+ * The value is serialized once, when it is stored, and its bytes are written to the responses as they are,
+ * so reads do not walk and re-encode an object tree. If the value reaches a Jackson generator anyway,
+ * it is written as a raw JSON value.
+ * </p>
+ * <p>
+ * Large values may be kept gzip-compressed; a JSON document never starts with the gzip magic bytes,
+ * so the stored form identifies itself. The compressed member ends with a sync flush followed by an
+ * empty final block, which lets a writer splice its deflate data into a larger gzip stream.
+ * </p>
+ */
+public final class JsonValue implements JsonSerializable {
+
+    /**
+     * Length of the gzip header written by {@link #compress()}.
+     */
+    public static final int GZIP_HEADER_LENGTH = 10;
+    /**
+     * Length of the empty final deflate block and the gzip trailer that end a compressed value.
+     */
+    public static final int GZIP_FOOTER_LENGTH = 10;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final String GZIP_TEXT_PREFIX = "gzip:";
+
+    private final byte[] bytes;
+    /**
+     * The entity tag, computed on first use; a stored value is never modified, so once per write.
+     */
+    private volatile String etag;
+
+    private JsonValue(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Serializes a value to JSON.
+     *
+     * @param objectMapper the mapper used to serialize the value.
+     * @param value        the value to serialize.
+     * @return the encoded value.
+     * @throws IllegalArgumentException if the value cannot be serialized.
+     */
+    public static JsonValue encode(ObjectMapper objectMapper, Object value) {
+        try {
+            return new JsonValue(objectMapper.writeValueAsBytes(value));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Value cannot be serialized to JSON", e);
+        }
+    }
+
+    /**
+     * Wraps an already encoded value without copying it.
+     *
+     * @param bytes the UTF-8 encoded JSON document or a gzip member created by {@link #compress()},
+     *              must not be modified afterwards.
+     * @return the wrapped value.
+     */
+    public static JsonValue wrap(byte[] bytes) {
+        return new JsonValue(bytes);
+    }
+
+    /**
+     * Restores a value from the text produced by {@link #toText()}.
+     *
+     * @param text the JSON document or the Base64 encoded compressed value.
+     * @return the restored value.
+     */
+    public static JsonValue fromText(String text) {
+        if (text.startsWith(GZIP_TEXT_PREFIX)) {
+            return new JsonValue(Base64.getDecoder().decode(text.substring(GZIP_TEXT_PREFIX.length())));
+        }
+        return new JsonValue(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the stored form of the value. The array is shared and must not be modified.
+     *
+     * @return the UTF-8 encoded JSON document, or its gzip member if the value is compressed.
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns whether the value is kept gzip-compressed.
+     *
+     * @return {@code true} if {@link #getBytes()} returns a gzip member.
+     */
+    public boolean isCompressed() {
+        return bytes.length >= GZIP_HEADER_LENGTH + GZIP_FOOTER_LENGTH
+                && bytes[0] == GZIP_HEADER[0] && bytes[1] == GZIP_HEADER[1];
+    }
+
+    /**
+     * Returns the JSON document, decompressing it if necessary.
+     *
+     * @return the UTF-8 encoded JSON document.
+     */
+    public byte[] getJsonBytes() {
+        if (!isCompressed()) {
+            return bytes;
+        }
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cached value cannot be decompressed", e);
+        }
+    }
+
+    /**
+     * Returns the value compressed with gzip. The value is returned unchanged if it is already
+     * compressed or if compression does not make it smaller.
+     *
+     * @return the compressed value.
+     */
+    public JsonValue compress() {
+        if (isCompressed()) {
+            return this;
+        }
+        var out = new ByteArrayOutputStream(bytes.length / 4 + GZIP_HEADER_LENGTH + GZIP_FOOTER_LENGTH);
+        out.writeBytes(GZIP_HEADER);
+        var deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(bytes);
+            byte[] buffer = new byte[8192];
+            int length;
+            do {
+                length = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                out.write(buffer, 0, length);
+            } while (length == buffer.length);
+            deflater.finish();
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+        } finally {
+            deflater.end();
+        }
+        var crc = new CRC32();
+        crc.update(bytes);
+        writeIntLE(out, (int) crc.getValue());
+        writeIntLE(out, bytes.length);
+        if (out.size() >= bytes.length) {
+            return this;
+        }
+        return new JsonValue(out.toByteArray());
+    }
+
+    /**
+     * Returns a weak entity tag of the value: the quoted MD5 digest of the JSON document.
+     * The tag is weak because the identity and the gzip-encoded responses of the value share it.
+     * The digest is computed once per instance.
+     *
+     * @return the entity tag, with the {@code W/} prefix and the quotes.
+     */
+    public String etag() {
+        String result = etag;
+        if (result == null) {
+            result = "W/\"" + DigestUtils.md5DigestAsHex(getJsonBytes()) + "\"";
+            etag = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the value as text suitable for a text column: the JSON document itself, or the Base64
+     * encoded gzip member with a {@code gzip:} prefix if the value is compressed.
+     *
+     * @return the text form of the value.
+     */
+    public String toText() {
+        if (isCompressed()) {
+            return GZIP_TEXT_PREFIX + Base64.getEncoder().encodeToString(bytes);
+        }
+        return toString();
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeRawValue(toString());
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+        serialize(gen, serializers);
+    }
+
+    /**
+     * Returns the JSON document as text.
+     */
+    @Override
+    public String toString() {
+        return new String(getJsonBytes(), StandardCharsets.UTF_8);
+    }
+
+    private static void writeIntLE(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+}
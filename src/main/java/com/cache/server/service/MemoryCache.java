@@ -1,38 +1,70 @@
 package com.cache.server.service;
 
+import com.cache.server.service.eviction.EvictionPolicy;
+import com.cache.server.service.eviction.Node;
+import com.cache.server.service.eviction.WindowTinyLfuEvictionPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.LocalDateTime;
-import java.util.Objects;
+import java.util.Queue;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Implementation of a memory-based cache manager with features such as expiration handling,
- * garbage collection (GC) when memory limits are reached, and multithreaded operations.
+ * eviction when the weight budget is exceeded, and multithreaded operations.
  * <p>
- * The cache stores data in a hierarchical structure where the first key maps to a nested map
- * of secondary keys and their associated values. Expired entries are automatically removed.
+ * The cache stores all entries in one concurrent map keyed by the composite (key1, key2), so a lookup
+ * is a single hash probe. A secondary index maps every primary key to the list of its entries, which keeps
+ * {@link #remove(String)} proportional to the number of removed entries. The list is linked through the
+ * entries themselves, and the keys of all entries of a primary key share the string held by the index,
+ * so neither key is stored twice. Every mutation of the map runs
+ * inside an atomic compute on the index bin of its primary key, so concurrent writers of the same
+ * primary key are serialized and no update is lost. Expired entries are never returned and are
+ * removed close to their deadline by a {@link TimerWheel}, which is advanced by the self-cleaner
+ * and on writes.
+ * </p>
+ * <p>
+ * Every entry is weighed once on insertion by a {@link Weigher}. The sum of all weights is kept
+ * in a lock-free counter and entries are evicted as soon as it exceeds the configured capacity,
+ * so the write path never samples the JVM heap or requests a garbage collection.
+ * </p>
+ * <p>
+ * The victims are chosen by an {@link EvictionPolicy} (Window TinyLFU by default). The policy is not
+ * thread-safe, so writes are recorded in a buffer that is replayed against it under the eviction lock,
+ * and reads are recorded only when the lock is free. Readers and writers never wait for each other.
+ * </p>
+ * <p>
+ * If a {@link SpillStore} is configured, evicted entries are demoted to it instead of being dropped,
+ * and a miss in memory promotes the entry back. Demotion, promotion and the removal of a stale
+ * demoted copy on writes run in the same compute on the primary key as the map update, so the two
+ * tiers never hold different live values of a key.
  * </p>
  *
  * @param <T> the type of values stored in the cache.
  */
 public class MemoryCache<T> implements CacheProvider<T> {
     private final Logger log = LoggerFactory.getLogger(this.getClass());
-    private int capacity = (int) (Runtime.getRuntime().maxMemory() * 0.75f);
+    private long capacity = (long) (Runtime.getRuntime().maxMemory() * 0.75f);
     private long lifeTime = 604_800L;
-    private final AtomicBoolean gcRunning = new AtomicBoolean(false);
-    private final AtomicBoolean permission = new AtomicBoolean(true);
-    private int thresholdGC = 200;
-    private int thresholdPermissionActive = 5;
-    private final Cache<T> cache = new Cache<>();
+    private Weigher<? super T> weigher = Weigher.estimating();
+    private final AtomicLong weightedSize = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final Queue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+    private EvictionPolicy evictionPolicy = new WindowTinyLfuEvictionPolicy();
+    private final TimerWheel timerWheel = new TimerWheel(System.nanoTime());
+    private final ConcurrentHashMap<CacheKey, Value<T>> map = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, KeyGroup<T>> index = new ConcurrentHashMap<>();
+    private SpillStore spillStore;
+    private ValueCodec<T> spillCodec;
 
     /**
      * Default constructor. Uses 75% of the JVM's max memory as the cache capacity
      * and sets a default lifetime of 604,800 seconds (7 days) for cached items.
      */
     public MemoryCache() {
+        evictionPolicy.setMaximum(capacity);
         log.debug("Initializing MemoryCache with default settings: capacity={}, lifeTimeDefault={} seconds", capacity, lifeTime);
     }
 
@@ -61,8 +93,71 @@ public class MemoryCache<T> implements CacheProvider<T> {
     @Override
     public boolean set(String key1, String key2, T value, Long lifeTime) {
         log.info("Setting value: key1={}, key2={}, lifeTime={} seconds", key1, key2, lifeTime);
-        Value<T> v = new Value<>(value, lifeTime, key1, key2);
-        return set(key1, key2, v);
+        int weight = weigher.weigh(key1, key2, value);
+        if (weight > capacity) {
+            log.warn("Value exceeds cache capacity: key1={}, key2={}, weight={}", key1, key2, weight);
+            return false;
+        }
+        long expirationTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(lifeTime);
+        weightedSize.addAndGet(weight);
+        index.compute(key1, (k, group) -> {
+            if (spillStore != null) {
+                spillStore.remove(k, key2);
+            }
+            return insert(k, group, key2, value, expirationTime, weight);
+        });
+        maintenance();
+        return true;
+    }
+
+    /**
+     * Stores a value unless the key holds an unexpired value in memory or in the spill store.
+     * The check and the write are atomic with respect to the other writes of the key.
+     *
+     * @param key1     the primary key.
+     * @param key2     the secondary key.
+     * @param value    the value to store.
+     * @param lifeTime the lifetime of the cache entry in seconds.
+     * @return the value already held by the key, or {@code null} if the given value was stored.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T putIfAbsent(String key1, String key2, T value, Long lifeTime) {
+        int weight = weigher.weigh(key1, key2, value);
+        if (weight > capacity) {
+            log.warn("Value exceeds cache capacity: key1={}, key2={}, weight={}", key1, key2, weight);
+            return null;
+        }
+        long expirationTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(lifeTime);
+        Object[] result = {null};
+        boolean[] inserted = {false};
+        index.compute(key1, (k, group) -> {
+            long now = System.nanoTime();
+            var current = map.get(new CacheKey(k, key2));
+            if (current != null && !current.isExpired(now)) {
+                result[0] = current.getValue();
+                return group;
+            }
+            var spilled = spillStore != null ? spillStore.take(new CacheKey(k, key2), now) : null;
+            if (spilled != null) {
+                T spilledValue = spillCodec.decode(spilled.value());
+                int spilledWeight = weigher.weigh(k, key2, spilledValue);
+                result[0] = spilledValue;
+                if (spilledWeight > capacity) {
+                    return group;
+                }
+                weightedSize.addAndGet(spilledWeight);
+                inserted[0] = true;
+                return insert(k, group, key2, spilledValue, spilled.expirationTime(), spilledWeight);
+            }
+            weightedSize.addAndGet(weight);
+            inserted[0] = true;
+            return insert(k, group, key2, value, expirationTime, weight);
+        });
+        if (inserted[0]) {
+            maintenance();
+        }
+        return (T) result[0];
     }
 
     /**
@@ -75,17 +170,43 @@ public class MemoryCache<T> implements CacheProvider<T> {
     @Override
     public T get(String key1, String key2) {
         log.info("Retrieving value: key1={}, key2={}", key1, key2);
-        var value1 = cache.get(key1);
-        if (value1 != null) {
-            var value2 = value1.get(key2);
-            if (value2 != null) {
-                return value2.getValue();
+        var value = map.get(new CacheKey(key1, key2));
+        if (value != null) {
+            if (!value.isExpired(System.nanoTime())) {
+                recordAccess(value);
+                return value.getValue();
+            }
+            log.debug("Value expired: key1={}, key2={}", key1, key2);
+            if (unlink(value)) {
+                discard(value);
+            }
+        } else if (spillStore != null) {
+            var promoted = promote(key1, key2);
+            if (promoted != null) {
+                return promoted;
             }
         }
         log.warn("Value not found: key1={}, key2={}", key1, key2);
         return null;
     }
 
+    /**
+     * Returns the remaining lifetime of a value held in memory, without counting it as an access.
+     *
+     * @param key1 the primary key.
+     * @param key2 the secondary key.
+     * @return the remaining lifetime in seconds, or {@code -1} if the key is not in memory or the value has expired.
+     */
+    @Override
+    public long remainingLifeTime(String key1, String key2) {
+        var value = map.get(new CacheKey(key1, key2));
+        if (value == null) {
+            return -1L;
+        }
+        long remaining = value.getExpirationTime() - System.nanoTime();
+        return remaining > 0L ? TimeUnit.NANOSECONDS.toSeconds(remaining) : -1L;
+    }
+
     /**
      * Removes a secondary cache from the primary cache.
      *
@@ -94,256 +215,563 @@ public class MemoryCache<T> implements CacheProvider<T> {
     @Override
     public void remove(String key1) {
         log.debug("Removing primary cache: key1={}", key1);
-        cache.map.remove(key1);
+        index.compute(key1, (k, group) -> {
+            if (spillStore != null) {
+                spillStore.remove(k);
+            }
+            for (var value = group == null ? null : group.head; value != null; value = value.nextInGroup) {
+                map.remove(value.getKey());
+                retire(value);
+                discard(value);
+            }
+            return null;
+        });
     }
 
     /**
-     * Removes a value from the cache.
+     * Removes a value from the cache, from memory or from the spill store.
      *
      * @param key1 the primary key.
      * @param key2 the secondary key.
+     * @return {@code true} if a value that had not expired was removed.
      */
     @Override
-    public void remove(String key1, String key2) {
+    public boolean remove(String key1, String key2) {
         log.debug("Removing value: key1={}, key2={}", key1, key2);
-        var value1 = cache.get(key1);
-        if (value1 != null) {
-            value1.remove(key2);
-        }
+        long now = System.nanoTime();
+        var present = new boolean[1];
+        index.compute(key1, (k, group) -> {
+            if (spillStore != null) {
+                present[0] = spillStore.remove(k, key2, now);
+            }
+            if (group == null) {
+                return null;
+            }
+            var removed = map.remove(new CacheKey(group.key1, key2));
+            if (removed != null) {
+                present[0] |= !removed.isExpired(now);
+                group.unlink(removed);
+                retire(removed);
+                discard(removed);
+            }
+            return group.isEmpty() ? null : group;
+        });
+        return present[0];
+    }
+
+    /**
+     * Removes a value held in memory if it expires no later than the given time. A spilled value
+     * is left to expire on its own.
+     *
+     * @param key1      the primary key.
+     * @param key2      the secondary key.
+     * @param expiresBy the wall-clock time, in milliseconds.
+     */
+    @Override
+    public void removeIfExpiresBy(String key1, String key2, long expiresBy) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(expiresBy - System.currentTimeMillis());
+        index.compute(key1, (k, group) -> {
+            if (group == null) {
+                return null;
+            }
+            var key = new CacheKey(group.key1, key2);
+            var value = map.get(key);
+            if (value != null && value.getExpirationTime() - deadline <= 0L && map.remove(key, value)) {
+                log.debug("Removing expired value: key1={}, key2={}", key1, key2);
+                group.unlink(value);
+                retire(value);
+                discard(value);
+            }
+            return group.isEmpty() ? null : group;
+        });
     }
 
     /**
      * Sets the cache capacity.
      *
-     * @param capacity the maximum memory usage for the cache, in mBytes.
+     * @param capacity the maximum total weight of the cache entries, in mBytes.
      */
     public void setCapacity(int capacity) {
-        log.debug("Setting cache capacity: capacity={} bytes", capacity);
-        this.capacity = (int) (capacity * Math.pow(1024, 2) * 0.75f);
+        log.debug("Setting cache capacity: capacity={} mBytes", capacity);
+        this.capacity = capacity * 1024L * 1024L;
+        evictionLock.lock();
+        try {
+            evictionPolicy.setMaximum(this.capacity);
+        } finally {
+            evictionLock.unlock();
+        }
     }
 
     /**
-     * Sets the lifetime for cached entries.
+     * Sets the policy that selects the entries to evict. Must be called before the cache is used.
      *
-     * @param lifeTime the lifetime of cache entries, in seconds.
+     * @param evictionPolicy the eviction policy.
      */
-    public void setLifeTime(long lifeTime) {
-        log.debug("Setting cache lifetime: lifeTime={} seconds", lifeTime);
-        this.lifeTime = lifeTime;
+    public void setEvictionPolicy(EvictionPolicy evictionPolicy) {
+        log.debug("Setting eviction policy: {}", evictionPolicy.getClass().getSimpleName());
+        evictionPolicy.setMaximum(capacity);
+        this.evictionPolicy = evictionPolicy;
     }
 
     /**
-     * Sets the threshold for triggering garbage collection.
+     * Sets the weigher used to estimate the size of the cache entries.
      *
-     * @param thresholdGC the number of iterations before triggering GC. Higher values delay GC.
+     * @param weigher the weigher applied to every inserted entry.
      */
-    public void setThresholdGC(int thresholdGC) {
-        log.debug("Setting GC threshold: thresholdGC={}", thresholdGC);
-        this.thresholdGC = thresholdGC;
+    public void setWeigher(Weigher<? super T> weigher) {
+        this.weigher = weigher;
     }
 
     /**
-     * Sets the threshold for denying cache write permissions when memory is low.
+     * Sets the tier that receives the evicted entries. Must be called before the cache is used.
      *
-     * @param thresholdPermissionActive the threshold to disable write access.
+     * @param spillStore the second tier.
+     * @param codec      the codec that converts the values for the second tier.
      */
-    public void setThresholdPermissionActive(int thresholdPermissionActive) {
-        log.debug("Setting permission threshold: thresholdPermissionActive={}", thresholdPermissionActive);
-        this.thresholdPermissionActive = thresholdPermissionActive;
+    public void setSpillStore(SpillStore spillStore, ValueCodec<T> codec) {
+        log.debug("Setting spill store");
+        this.spillCodec = codec;
+        this.spillStore = spillStore;
     }
 
     /**
-     * Starts a background thread to periodically find and remove expired entries from the cache.
+     * Sets the lifetime for cached entries.
+     *
+     * @param lifeTime the lifetime of cache entries, in seconds.
+     */
+    public void setLifeTime(long lifeTime) {
+        log.debug("Setting cache lifetime: lifeTime={} seconds", lifeTime);
+        this.lifeTime = lifeTime;
+    }
+
+    /**
+     * Starts a background thread that periodically advances the expiration timer wheel,
+     * removing the entries whose lifetime has ended.
+     *
+     * @param initialDelay the delay before the first run, in seconds.
+     * @param period       the interval between runs, in seconds.
      */
     public void selfCleanerStart(long initialDelay, long period) {
-        ScheduledExecutorService scheduledExecutor = Executors.newSingleThreadScheduledExecutor();
-        Runnable task = () -> {
-            log.trace("Expired entry removal thread started");
-            try {
-                for (var entry : cache.map.entrySet()) {
-                    if (entry.getValue().isEmpty()) {
-                        log.trace("Removing empty primary cache: key1={}", entry.getKey());
-                        remove(entry.getKey());
-                    } else {
-                        entry.getValue().values().removeIf(value -> {
-                            boolean expired = value.isExpired();
-                            if (expired) {
-                                log.trace("Removing expired value: key1={}, key2={}", value.getKey1(), value.getKey2());
-                            }
-                            return expired;
-                        });
-                    }
-                }
-            } catch (Exception e) {
-                log.error("Failed to remove expired entries", e);
-            } finally {
-                System.gc();
-            }
-        };
-        scheduledExecutor.scheduleAtFixedRate(task, initialDelay, period, TimeUnit.SECONDS);
+        ScheduledExecutorService scheduledExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "memory-cache-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduledExecutor.scheduleAtFixedRate(this::cleanUp, initialDelay, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Performs the pending maintenance: applies the buffered writes, removes expired entries
+     * and evicts entries exceeding the capacity. Waits for the eviction lock if necessary.
+     */
+    public void cleanUp() {
+        log.trace("Expired entry removal started");
+        evictionLock.lock();
+        try {
+            drainWriteBuffer();
+            expire();
+            evict();
+        } catch (Exception e) {
+            log.error("Failed to remove expired entries", e);
+        } finally {
+            evictionLock.unlock();
+        }
     }
 
     /**
      * Returns the total size of all entries in the cache.
+     * Pending maintenance is performed first, so expired entries are not counted.
      *
      * @return the total size of the cache entries
      */
     public int size() {
-        int size = 0;
-        for (var entry : cache.map.entrySet()) {
-            size += entry.getValue().size();
-        }
-        return size;
+        cleanUp();
+        return map.size();
     }
 
-    private boolean set(String key1, String key2, Value<T> value) {
-        if (!permission.get()) {
-            log.warn("Permission denied. No resources to set value: key1={}, key2={}", key1, key2);
-            return false;
+    /**
+     * Returns the estimated total size of all entries in the cache.
+     *
+     * @return the sum of the entry weights, in bytes
+     */
+    public long weightedSize() {
+        return weightedSize.get();
+    }
+
+    /**
+     * Passes every live entry held in memory to a visitor, with its remaining lifetime.
+     * Entries written or removed during the iteration may or may not be visited, and entries
+     * demoted to the spill store are not visited.
+     *
+     * @param visitor the visitor of the entries.
+     */
+    public void forEach(EntryVisitor<? super T> visitor) {
+        long now = System.nanoTime();
+        for (var value : map.values()) {
+            long remaining = value.getExpirationTime() - now;
+            if (value.isAlive() && remaining > 0L) {
+                var key = value.getKey();
+                visitor.visit(key.getKey1(), key.getKey2(), value.getValue(), TimeUnit.NANOSECONDS.toMillis(remaining));
+            }
         }
-        var valueOfKey1 = cache.get(key1);
-        if (valueOfKey1 == null) {
-            log.debug("Creating new primary key entry: key1={}", key1);
-            valueOfKey1 = new ConcurrentHashMap<>();
-            valueOfKey1.put(key2, value);
-            cache.put(key1, valueOfKey1);
-        } else {
-            log.debug("Adding value to existing primary key: key1={}, key2={}", key1, key2);
-            valueOfKey1.put(key2, value);
-        }
-        addValue(value);
-        gcRun();
-        return true;
     }
 
-    private void addValue(Value<T> value) {
-        log.trace("Adding value to queue: key1={}, key2={}", value.getKey1(), value.getKey2());
-        Workers.worker2.submit(() -> cache.add(value));
+    /**
+     * Visitor of the entries passed by {@link #forEach(EntryVisitor)}.
+     *
+     * @param <T> the type of the cached value.
+     */
+    @FunctionalInterface
+    public interface EntryVisitor<T> {
+        /**
+         * @param key1            the primary key.
+         * @param key2            the secondary key.
+         * @param value           the cached value.
+         * @param remainingMillis the remaining lifetime of the entry, in milliseconds.
+         */
+        void visit(String key1, String key2, T value, long remainingMillis);
     }
 
-    private void gcRun() {
-        if (!gcRunning.get() && isNotFreeMemory()) {
-            log.warn("Starting garbage collection process");
-            gcRunning.set(true);
-            Workers.worker.submit(this::gc);
+    /**
+     * Creates the entry of a value and maps it, replacing the previous value of the key.
+     * Must be called from within a compute on the index bin of the primary key.
+     *
+     * @return the group of the primary key.
+     */
+    private KeyGroup<T> insert(String key1, KeyGroup<T> group, String key2, T value, long expirationTime, int weight) {
+        if (group == null) {
+            log.debug("Creating new primary key entry: key1={}", key1);
+            group = new KeyGroup<>(key1);
+        }
+        var v = new Value<>(value, expirationTime, new CacheKey(group.key1, key2), weight);
+        var previous = map.put(v.getKey(), v);
+        if (previous != null) {
+            group.unlink(previous);
+            retire(previous);
+            discard(previous);
         }
+        group.link(v);
+        writeBuffer.add(() -> {
+            if (v.isAlive()) {
+                evictionPolicy.onInsert(v);
+                timerWheel.schedule(v);
+            }
+        });
+        return group;
     }
 
-    private void gc() {
-        log.debug("Garbage collection started");
-        int i = 0, j = 0;
-        while (isNotFreeMemory()) {
-            var value = cache.getAndRemove();
-            if (value != null) {
-                log.debug("Removing value during GC: key1={}, key2={}", value.getKey1(), value.getKey2());
-                remove(value.getKey1(), value.getKey2());
+    /**
+     * Moves a value from the spill store back into memory, unless another thread has stored the key
+     * in the meantime, in which case that value is returned.
+     *
+     * @return the value, or {@code null} if the spill store does not hold it.
+     */
+    @SuppressWarnings("unchecked")
+    private T promote(String key1, String key2) {
+        Object[] result = {null};
+        boolean[] inserted = {false};
+        index.compute(key1, (k, group) -> {
+            var key = new CacheKey(k, key2);
+            var current = map.get(key);
+            if (current != null) {
+                result[0] = current.getValue();
+                return group;
             }
-            if (j == thresholdPermissionActive) {
-                log.warn("Permission disabled during GC");
-                permission.set(false);
+            var spilled = spillStore.take(key, System.nanoTime());
+            if (spilled == null) {
+                return group;
             }
-            if (i == thresholdGC) {
-                log.debug("Triggering JVM garbage collection");
-                Workers.worker3.submit(System::gc);
-                i = 0;
-                j++;
+            T value = spillCodec.decode(spilled.value());
+            result[0] = value;
+            int weight = weigher.weigh(k, key2, value);
+            if (weight > capacity) {
+                return group;
             }
-            i++;
+            weightedSize.addAndGet(weight);
+            inserted[0] = true;
+            return insert(k, group, key2, value, spilled.expirationTime(), weight);
+        });
+        if (inserted[0]) {
+            log.debug("Value promoted from the spill store: key1={}, key2={}", key1, key2);
+            maintenance();
         }
-        permission.set(true);
-        gcRunning.set(false);
-        Workers.worker3.submit(System::gc);
-        log.info("Garbage collection completed");
+        return (T) result[0];
     }
 
-    private boolean isNotFreeMemory() {
-        boolean notFree = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory() > capacity;
-        log.debug("Memory check: isNotFreeMemory={} (used={}, capacity={})", notFree, Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory(), capacity);
-        return notFree;
+    /**
+     * Removes the mapping of a value if it is still the current one for its key and moves the value
+     * to the spill store. Falls back to a plain removal if the value cannot be encoded.
+     * Must not be called from within a compute on the index.
+     *
+     * @return {@code true} if the value was removed by this call.
+     */
+    private boolean demote(Value<T> value) {
+        byte[] bytes;
+        try {
+            bytes = spillCodec.encode(value.getValue());
+        } catch (RuntimeException e) {
+            log.warn("Value cannot be demoted: {}", value.getKey(), e);
+            return unlink(value);
+        }
+        var key = value.getKey();
+        boolean[] removed = {false};
+        index.computeIfPresent(key.getKey1(), (k, group) -> {
+            if (map.remove(key, value)) {
+                group.unlink(value);
+                retire(value);
+                spillStore.put(key, bytes, value.getExpirationTime());
+                removed[0] = true;
+            }
+            return group.isEmpty() ? null : group;
+        });
+        return removed[0];
     }
 
     /**
-     * Internal class representing the cache structure and its associated operations.
+     * Removes the mapping of a value if it is still the current one for its key.
+     * Must not be called from within a compute on the index.
      *
-     * @param <T> the type of values stored in the cache.
+     * @return {@code true} if the value was removed by this call.
+     */
+    private boolean unlink(Value<T> value) {
+        var key = value.getKey();
+        boolean[] removed = {false};
+        index.computeIfPresent(key.getKey1(), (k, group) -> {
+            if (map.remove(key, value)) {
+                group.unlink(value);
+                retire(value);
+                removed[0] = true;
+            }
+            return group.isEmpty() ? null : group;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Marks a value that has been removed from the map as dead and releases its weight.
      */
-    private static class Cache<T> {
-        private final ConcurrentHashMap<String, ConcurrentHashMap<String, Value<T>>> map = new ConcurrentHashMap<>();
-        private final LinkedBlockingDeque<Value<T>> queue = new LinkedBlockingDeque<>();
+    private void retire(Value<T> value) {
+        value.retire();
+        weightedSize.addAndGet(-value.getWeight());
+    }
 
-        public void put(String key1, ConcurrentHashMap<String, Value<T>> valueOfKey1) {
-            map.put(key1, valueOfKey1);
+    /**
+     * Schedules the removal of a retired value from the eviction policy and the timer wheel.
+     */
+    private void discard(Value<T> value) {
+        writeBuffer.add(() -> {
+            evictionPolicy.onRemove(value);
+            timerWheel.deschedule(value);
+        });
+    }
+
+    /**
+     * Records a read for the eviction policy. The read is dropped if another thread holds
+     * the eviction lock, so readers never block.
+     */
+    private void recordAccess(Value<T> value) {
+        if (evictionLock.tryLock()) {
+            try {
+                drainWriteBuffer();
+                evictionPolicy.onAccess(value);
+            } finally {
+                evictionLock.unlock();
+            }
         }
+    }
 
-        public ConcurrentHashMap<String, Value<T>> get(String key1) {
-            return map.get(key1);
+    /**
+     * Replays the buffered writes against the eviction policy and the timer wheel, removes expired
+     * entries and evicts entries until the total weight fits into the capacity. If another thread
+     * is already doing it, the call returns immediately; that thread re-checks the buffer after
+     * releasing the lock.
+     */
+    private void maintenance() {
+        for (int attempt = 0; attempt < 2 && !writeBuffer.isEmpty(); attempt++) {
+            if (!evictionLock.tryLock()) {
+                return;
+            }
+            try {
+                drainWriteBuffer();
+                expire();
+                evict();
+            } finally {
+                evictionLock.unlock();
+            }
         }
+    }
 
-        public void add(Value<T> v) {
-            queue.addLast(v);
+    private void drainWriteBuffer() {
+        Runnable task;
+        while ((task = writeBuffer.poll()) != null) {
+            task.run();
         }
+    }
 
-        public Value<T> getAndRemove() {
-            return queue.pollFirst();
+    /**
+     * Advances the timer wheel and removes the entries whose lifetime has ended.
+     */
+    @SuppressWarnings("unchecked")
+    private void expire() {
+        int expired = timerWheel.advance(System.nanoTime(), timer -> {
+            var value = (Value<T>) timer;
+            evictionPolicy.onRemove(value);
+            if (unlink(value)) {
+                log.trace("Removing expired value: {}", value.getKey());
+            }
+            return true;
+        });
+        if (expired > 0) {
+            log.debug("Expired entries removed: expired={}", expired);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void evict() {
+        int evicted = 0;
+        while (weightedSize.get() > capacity) {
+            var value = (Value<T>) evictionPolicy.victim();
+            if (value == null) {
+                break;
+            }
+            evictionPolicy.onRemove(value);
+            timerWheel.deschedule(value);
+            if (spillStore != null ? demote(value) : unlink(value)) {
+                log.trace("Evicting value: {}", value.getKey());
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Eviction completed: evicted={}, weightedSize={}, capacity={}", evicted, weightedSize.get(), capacity);
         }
     }
 
     /**
-     * Utility class containing thread pools for handling asynchronous tasks.
+     * All entries of one primary key. Holds the canonical instance of the primary key, which is shared
+     * by the keys of the entries, and a doubly linked list of the entries. Guarded by the index bin lock.
+     *
+     * @param <T> the type of the cached value.
      */
-    private static class Workers {
-        public static final ExecutorService worker = Executors.newSingleThreadExecutor();
-        public static final ExecutorService worker2 = Executors.newSingleThreadExecutor();
-        public static final ExecutorService worker3 = Executors.newSingleThreadExecutor();
+    private static final class KeyGroup<T> {
+        private final String key1;
+        private Value<T> head;
+
+        KeyGroup(String key1) {
+            this.key1 = key1;
+        }
+
+        void link(Value<T> value) {
+            value.nextInGroup = head;
+            if (head != null) {
+                head.previousInGroup = value;
+            }
+            head = value;
+        }
+
+        void unlink(Value<T> value) {
+            var previous = value.previousInGroup;
+            var next = value.nextInGroup;
+            if (previous == null) {
+                head = next;
+            } else {
+                previous.nextInGroup = next;
+            }
+            if (next != null) {
+                next.previousInGroup = previous;
+            }
+            value.previousInGroup = null;
+            value.nextInGroup = null;
+        }
+
+        boolean isEmpty() {
+            return head == null;
+        }
     }
 
     /**
      * Wrapper class for storing cached values along with their metadata.
+     * <p>
+     * The expiration time is a primitive {@link System#nanoTime()} deadline, and the links of the eviction
+     * policy, the timer wheel and the primary key group are fields of the entry, so a cached value costs
+     * one object besides its key and the map node.
+     * </p>
      *
      * @param <T> the type of the cached value.
      */
-    private static class Value<T> {
+    private static final class Value<T> extends Node implements TimerWheel.Timer {
         private final T value;
-        private final LocalDateTime expiration;
-        private final String key1;
-        private final String key2;
+        private final long expirationTime;
+        private final CacheKey key;
+        private final int weight;
+        private volatile boolean alive = true;
+        private TimerWheel.Timer previousInTimerOrder;
+        private TimerWheel.Timer nextInTimerOrder;
+        private Value<T> previousInGroup;
+        private Value<T> nextInGroup;
 
         protected T getValue() {
             return value;
         }
 
-        protected String getKey1() {
-            return key1;
+        protected CacheKey getKey() {
+            return key;
         }
 
-        protected String getKey2() {
-            return key2;
+        @Override
+        public int getWeight() {
+            return weight;
         }
 
-        public Value(T value, Long lifeTime, String key1, String key2) {
-            this.key1 = key1;
-            this.key2 = key2;
+        @Override
+        public int keyHash() {
+            return key.hashCode();
+        }
+
+        /**
+         * Returns whether the value is still reachable from the cache map.
+         */
+        protected boolean isAlive() {
+            return alive;
+        }
+
+        protected void retire() {
+            alive = false;
+        }
+
+        public Value(T value, long expirationTime, CacheKey key, int weight) {
+            this.key = key;
             this.value = value;
-            this.expiration = LocalDateTime.now().plusSeconds(lifeTime);
+            this.weight = weight;
+            this.expirationTime = expirationTime;
+        }
+
+        public boolean isExpired(long now) {
+            return expirationTime - now <= 0L;
+        }
+
+        @Override
+        public long getExpirationTime() {
+            return expirationTime;
         }
 
-        public boolean isExpired() {
-            return expiration.isBefore(LocalDateTime.now());
+        @Override
+        public TimerWheel.Timer getPreviousInTimerOrder() {
+            return previousInTimerOrder;
+        }
+
+        @Override
+        public void setPreviousInTimerOrder(TimerWheel.Timer timer) {
+            previousInTimerOrder = timer;
         }
 
         @Override
-        public boolean equals(Object o) {
-            if (o == null || getClass() != o.getClass()) return false;
-            @SuppressWarnings("unchecked") Value<T> value1 = (Value<T>) o;
-            return Objects.equals(value, value1.value)
-                    && Objects.equals(expiration, value1.expiration)
-                    && Objects.equals(key1, value1.key1)
-                    && Objects.equals(key2, value1.key2);
+        public TimerWheel.Timer getNextInTimerOrder() {
+            return nextInTimerOrder;
         }
 
         @Override
-        public int hashCode() {
-            return Objects.hash(value, expiration, key1, key2);
+        public void setNextInTimerOrder(TimerWheel.Timer timer) {
+            nextInTimerOrder = timer;
         }
     }
 }
@@ -0,0 +1,65 @@
+package com.cache.server.service;
+
+import com.cache.server.config.CacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers for a short time the keys that were found neither in the memory cache nor in the database,
+ * so that repeated lookups of a missing key do not reach the database.
+ * <p>
+ * The keys are kept in a {@link MemoryCache} bounded by {@code cache.negative-cache.capacity} mBytes,
+ * for {@code cache.negative-cache.life-time} seconds. A write of a key, local or replicated, removes it
+ * from this cache; until the replicated write arrives, the key may be reported missing for up to that long.
+ * </p>
+ * <p>
+ * Activated by {@code cache.negative-cache.enable=true}. It is used only with the read-through
+ * ({@code cache.read-through.enable=true}), since without it a miss in memory does not cost a lookup.
+ * </p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cache.negative-cache.enable", havingValue = "true")
+public class NegativeCache {
+
+    private final MemoryCache<Boolean> missingKeys = new MemoryCache<>();
+
+    public NegativeCache(CacheProperties cacheProperties) {
+        var properties = cacheProperties.getNegativeCache();
+        missingKeys.setCapacity(properties.getCapacity());
+        missingKeys.setLifeTime(properties.getLifeTime());
+        missingKeys.selfCleanerStart(1L, 1L);
+        log.debug("Initializing NegativeCache: capacity={}, lifeTime={} seconds",
+                properties.getCapacity(), properties.getLifeTime());
+    }
+
+    /**
+     * @param key1 the primary key.
+     * @param key2 the secondary key.
+     * @return {@code true} if the key was recently found missing.
+     */
+    public boolean isMissing(String key1, String key2) {
+        return missingKeys.get(key1, key2) != null;
+    }
+
+    /**
+     * Records a key that was not found.
+     *
+     * @param key1 the primary key.
+     * @param key2 the secondary key.
+     */
+    public void addMissing(String key1, String key2) {
+        missingKeys.set(key1, key2, Boolean.TRUE);
+    }
+
+    /**
+     * Forgets a key, once it has been written.
+     *
+     * @param key1 the primary key.
+     * @param key2 the secondary key.
+     */
+    public void remove(String key1, String key2) {
+        missingKeys.remove(key1, key2);
+    }
+}
@@ -0,0 +1,106 @@
+package com.cache.server.service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Estimates the retained heap size of cached keys and values.
+ * <p>
+ * The estimate assumes a 64-bit JVM with compressed object pointers and compact strings and
+ * understands the structures produced by JSON deserialization (maps, lists, strings, numbers
+ * and booleans) as well as values kept as encoded JSON. It is intentionally cheap: no reflection
+ * is used and unknown objects are counted with a fixed size.
+ * </p>
+ */
+final class ObjectSizeEstimator {
+
+    /**
+     * Fixed overhead of one cache entry: the entry wrapper, the hash map node and bookkeeping references.
+     */
+    static final int ENTRY_OVERHEAD = 112;
+    private static final int OBJECT_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int STRING_OVERHEAD = 40;
+    private static final int MAP_OVERHEAD = 64;
+    private static final int MAP_ENTRY_OVERHEAD = 40;
+    private static final int COLLECTION_OVERHEAD = 40;
+    private static final int UNKNOWN_OBJECT = 32;
+
+    private ObjectSizeEstimator() {
+    }
+
+    /**
+     * Estimates the size of a cache entry including its keys.
+     *
+     * @param key1  the primary key.
+     * @param key2  the secondary key.
+     * @param value the cached value.
+     * @return the estimated size in bytes, saturated at {@link Integer#MAX_VALUE}.
+     */
+    static int estimateEntry(String key1, String key2, Object value) {
+        long size = ENTRY_OVERHEAD + estimate(key1) + estimate(key2) + estimate(value);
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Estimates the size of an object graph.
+     *
+     * @param value the object to estimate.
+     * @return the estimated size in bytes.
+     */
+    static long estimate(Object value) {
+        if (value == null || value instanceof Boolean) {
+            return 0;
+        }
+        if (value instanceof CharSequence s) {
+            return STRING_OVERHEAD + s.length();
+        }
+        if (value instanceof byte[] bytes) {
+            return OBJECT_HEADER + bytes.length;
+        }
+        if (value instanceof JsonValue json) {
+            return OBJECT_HEADER + estimate(json.getBytes());
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte || value instanceof Character
+                || value instanceof Float) {
+            return OBJECT_HEADER;
+        }
+        if (value instanceof Long || value instanceof Double) {
+            return OBJECT_HEADER + 8;
+        }
+        if (value instanceof UUID) {
+            return OBJECT_HEADER + 16;
+        }
+        if (value instanceof BigInteger b) {
+            return COLLECTION_OVERHEAD + (b.bitLength() >> 3);
+        }
+        if (value instanceof BigDecimal d) {
+            return COLLECTION_OVERHEAD + estimate(d.unscaledValue());
+        }
+        if (value instanceof Map<?, ?> map) {
+            long size = MAP_OVERHEAD + (long) REFERENCE * map.size();
+            for (var entry : map.entrySet()) {
+                size += MAP_ENTRY_OVERHEAD + estimate(entry.getKey()) + estimate(entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof Collection<?> collection) {
+            long size = COLLECTION_OVERHEAD + (long) REFERENCE * collection.size();
+            for (var element : collection) {
+                size += estimate(element);
+            }
+            return size;
+        }
+        if (value instanceof Object[] array) {
+            long size = OBJECT_HEADER + (long) REFERENCE * array.length;
+            for (var element : array) {
+                size += estimate(element);
+            }
+            return size;
+        }
+        return UNKNOWN_OBJECT;
+    }
+}
@@ -0,0 +1,527 @@
+package com.cache.server.service;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Implementation of a memory-based cache that keeps the values outside the Java heap.
+ * <p>
+ * Values are serialized to JSON and copied into chunks of direct memory handed out by a
+ * {@link SlabAllocator}. The heap holds only a compact index entry per value (keys, chunk address,
+ * length and expiration time), so the garbage collector never traverses the cached data and its
+ * pause times do not grow with the size of the cache.
+ * </p>
+ * <p>
+ * When a slab class runs out of chunks and no page is left, the least recently used entry of that
+ * class is evicted using the CLOCK algorithm: reads only set a reference bit, so they run under a
+ * shared lock. Once a class has evicted a page worth of entries, or if it has no entry to evict, it takes
+ * a page from the class with the fewest evictions per page, evicting the entries stored in that page, so
+ * the memory is not held by the first value sizes seen. Expired entries are never returned and are removed
+ * by a {@link TimerWheel}.
+ * The direct memory limit of the JVM ({@code -XX:MaxDirectMemorySize}) must exceed the capacity.
+ * </p>
+ *
+ * @param <T> the type of values stored in the cache.
+ */
+public class OffHeapMemoryCache<T> implements CacheProvider<T> {
+    private static final int PAGE_SIZE = 1024 * 1024;
+    private static final double GROWTH_FACTOR = 1.25d;
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final ObjectMapper objectMapper;
+    private final JavaType type;
+    private boolean encodedValues;
+    private long capacity = (long) (Runtime.getRuntime().maxMemory() * 0.75f);
+    private long lifeTime = 604_800L;
+    private final SlabAllocator allocator = new SlabAllocator(PAGE_SIZE, GROWTH_FACTOR, capacity);
+    private final Entry[] clockHands = new Entry[allocator.slabClassCount()];
+    private final int[] evictions = new int[allocator.slabClassCount()];
+    private final Map<String, Map<String, Entry>> index = new HashMap<>();
+    private final TimerWheel timerWheel = new TimerWheel(System.nanoTime());
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int size;
+
+    /**
+     * Creates a cache that serializes values with the given object mapper.
+     *
+     * @param objectMapper the mapper used to convert values to and from JSON.
+     * @param type         the type values are deserialized to.
+     */
+    public OffHeapMemoryCache(ObjectMapper objectMapper, Class<T> type) {
+        this.objectMapper = objectMapper;
+        this.type = objectMapper.constructType(type);
+        log.debug("Initializing OffHeapMemoryCache with default settings: capacity={}, lifeTimeDefault={} seconds", capacity, lifeTime);
+    }
+
+    @Override
+    public boolean set(String key1, String key2, T value) {
+        return set(key1, key2, value, lifeTime);
+    }
+
+    @Override
+    public boolean set(String key1, String key2, T value, Long lifeTime) {
+        log.debug("Setting value: key1={}, key2={}, lifeTime={} seconds", key1, key2, lifeTime);
+        byte[] bytes;
+        try {
+            bytes = value instanceof JsonValue json ? json.getBytes() : objectMapper.writerFor(type).writeValueAsBytes(value);
+        } catch (IOException e) {
+            log.warn("Value cannot be serialized: key1={}, key2={}", key1, key2, e);
+            return false;
+        }
+        int slabClass = allocator.slabClass(bytes.length);
+        if (slabClass < 0) {
+            log.warn("Value exceeds the slab page size: key1={}, key2={}, length={}", key1, key2, bytes.length);
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            long address = allocate(slabClass);
+            if (address == SlabAllocator.NO_MEMORY) {
+                log.warn("No off-heap memory left for slab class {}: key1={}, key2={}", slabClass, key1, key2);
+                return false;
+            }
+            removeEntry(key1, key2);
+            allocator.write(address, bytes);
+            var entry = new Entry(key1, key2, address, bytes.length, (byte) slabClass,
+                    System.nanoTime() + TimeUnit.SECONDS.toNanos(lifeTime));
+            index.computeIfAbsent(key1, k -> new HashMap<>()).put(key2, entry);
+            linkClock(entry);
+            timerWheel.schedule(entry);
+            size++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stores a value unless the key holds an unexpired value, under the write lock.
+     */
+    @Override
+    public T putIfAbsent(String key1, String key2, T value, Long lifeTime) {
+        byte[] bytes;
+        lock.writeLock().lock();
+        try {
+            var valueOfKey1 = index.get(key1);
+            var entry = valueOfKey1 == null ? null : valueOfKey1.get(key2);
+            if (entry == null || entry.expirationTime - System.nanoTime() <= 0L) {
+                set(key1, key2, value, lifeTime);
+                return null;
+            }
+            entry.referenced = true;
+            bytes = new byte[entry.length];
+            allocator.read(entry.address, bytes);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return decode(key1, key2, bytes);
+    }
+
+    @Override
+    public T get(String key1, String key2) {
+        log.debug("Retrieving value: key1={}, key2={}", key1, key2);
+        byte[] bytes;
+        lock.readLock().lock();
+        try {
+            var valueOfKey1 = index.get(key1);
+            var entry = valueOfKey1 == null ? null : valueOfKey1.get(key2);
+            if (entry == null || entry.expirationTime - System.nanoTime() <= 0L) {
+                return null;
+            }
+            entry.referenced = true;
+            bytes = new byte[entry.length];
+            allocator.read(entry.address, bytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return decode(key1, key2, bytes);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T decode(String key1, String key2, byte[] bytes) {
+        if (encodedValues) {
+            return (T) JsonValue.wrap(bytes);
+        }
+        try {
+            return objectMapper.readValue(bytes, type);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cached value cannot be deserialized: key1=" + key1 + ", key2=" + key2, e);
+        }
+    }
+
+    @Override
+    public long remainingLifeTime(String key1, String key2) {
+        lock.readLock().lock();
+        try {
+            var valueOfKey1 = index.get(key1);
+            var entry = valueOfKey1 == null ? null : valueOfKey1.get(key2);
+            long remaining = entry == null ? 0L : entry.expirationTime - System.nanoTime();
+            return remaining > 0L ? TimeUnit.NANOSECONDS.toSeconds(remaining) : -1L;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(String key1) {
+        log.debug("Removing primary cache: key1={}", key1);
+        lock.writeLock().lock();
+        try {
+            var removed = index.remove(key1);
+            if (removed != null) {
+                removed.values().forEach(this::release);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(String key1, String key2) {
+        log.debug("Removing value: key1={}, key2={}", key1, key2);
+        lock.writeLock().lock();
+        try {
+            var removed = removeEntry(key1, key2);
+            return removed != null && removed.expirationTime - System.nanoTime() > 0L;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeIfExpiresBy(String key1, String key2, long expiresBy) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(expiresBy - System.currentTimeMillis());
+        lock.writeLock().lock();
+        try {
+            var valueOfKey1 = index.get(key1);
+            var entry = valueOfKey1 == null ? null : valueOfKey1.get(key2);
+            if (entry != null && entry.expirationTime - deadline <= 0L) {
+                removeEntry(key1, key2);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the cache capacity.
+     *
+     * @param capacity the maximum amount of off-heap memory, in mBytes.
+     */
+    public void setCapacity(int capacity) {
+        log.debug("Setting cache capacity: capacity={} mBytes", capacity);
+        lock.writeLock().lock();
+        try {
+            this.capacity = capacity * 1024L * 1024L;
+            allocator.setCapacity(this.capacity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sets whether values are returned as the stored {@link JsonValue} instead of being deserialized.
+     * Must only be enabled when the cache type admits {@link JsonValue}.
+     *
+     * @param encodedValues {@code true} to skip deserialization on reads.
+     */
+    public void setEncodedValues(boolean encodedValues) {
+        this.encodedValues = encodedValues;
+    }
+
+    /**
+     * Sets the lifetime for cached entries.
+     *
+     * @param lifeTime the lifetime of cache entries, in seconds.
+     */
+    public void setLifeTime(long lifeTime) {
+        log.debug("Setting cache lifetime: lifeTime={} seconds", lifeTime);
+        this.lifeTime = lifeTime;
+    }
+
+    /**
+     * Starts a background thread that periodically advances the expiration timer wheel,
+     * releasing the chunks of the entries whose lifetime has ended.
+     *
+     * @param initialDelay the delay before the first run, in seconds.
+     * @param period       the interval between runs, in seconds.
+     */
+    public void selfCleanerStart(long initialDelay, long period) {
+        ScheduledExecutorService scheduledExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "off-heap-cache-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduledExecutor.scheduleAtFixedRate(this::cleanUp, initialDelay, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Removes the entries whose lifetime has ended.
+     */
+    public void cleanUp() {
+        lock.writeLock().lock();
+        try {
+            int expired = timerWheel.advance(System.nanoTime(), timer -> {
+                var entry = (Entry) timer;
+                log.trace("Removing expired value: key1={}, key2={}", entry.key1, entry.key2);
+                unlink(entry);
+                return true;
+            });
+            if (expired > 0) {
+                log.debug("Expired entries removed: expired={}", expired);
+            }
+        } catch (Exception e) {
+            log.error("Failed to remove expired entries", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of entries in the cache.
+     * Pending maintenance is performed first, so expired entries are not counted.
+     *
+     * @return the number of cache entries
+     */
+    public int size() {
+        cleanUp();
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the amount of off-heap memory reserved by the cache.
+     *
+     * @return the reserved memory, in bytes
+     */
+    public long reservedBytes() {
+        lock.readLock().lock();
+        try {
+            return allocator.reservedBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long allocate(int slabClass) {
+        long address = allocator.allocate(slabClass);
+        while (address == SlabAllocator.NO_MEMORY) {
+            if (!rebalance(slabClass)) {
+                if (clockHands[slabClass] == null) {
+                    return SlabAllocator.NO_MEMORY;
+                }
+                evict(slabClass);
+            }
+            address = allocator.allocate(slabClass);
+        }
+        return address;
+    }
+
+    /**
+     * Moves a page to the slab class if it has no entry to evict, or if it has evicted a page worth
+     * of entries and another class evicts fewer entries per page. The page is taken from the class
+     * with the fewest evictions per page, at its clock hand, and the entries stored in it are evicted.
+     *
+     * @return {@code true} if a page was moved.
+     */
+    private boolean rebalance(int slabClass) {
+        boolean starving = clockHands[slabClass] == null;
+        if (!starving && evictions[slabClass] < allocator.chunksPerPage(slabClass)) {
+            return false;
+        }
+        int donor = -1;
+        for (int candidate = 0; candidate < clockHands.length; candidate++) {
+            if (candidate != slabClass && allocator.pageCount(candidate) > 0
+                    && (donor < 0 || lessPressure(candidate, donor))) {
+                donor = candidate;
+            }
+        }
+        if (donor < 0 || !starving && !lessPressure(donor, slabClass)) {
+            return false;
+        }
+        int page = clockHands[donor] != null
+                ? SlabAllocator.page(clockHands[donor].address)
+                : allocator.lastPage(donor);
+        var stored = new ArrayList<Entry>();
+        var entry = clockHands[donor];
+        if (entry != null) {
+            do {
+                if (SlabAllocator.page(entry.address) == page) {
+                    stored.add(entry);
+                }
+                entry = entry.next;
+            } while (entry != clockHands[donor]);
+        }
+        for (var evicted : stored) {
+            log.trace("Evicting value: key1={}, key2={}", evicted.key1, evicted.key2);
+            timerWheel.deschedule(evicted);
+            unlink(evicted);
+        }
+        allocator.reassign(page, slabClass);
+        Arrays.fill(evictions, 0);
+        log.debug("Moved page {} from slab class {} to slab class {}, evicting {} entries",
+                page, donor, slabClass, stored.size());
+        return true;
+    }
+
+    /**
+     * Returns whether the first slab class evicts fewer entries per page than the second.
+     */
+    private boolean lessPressure(int slabClass, int other) {
+        return (long) evictions[slabClass] * allocator.pageCount(other)
+                < (long) evictions[other] * allocator.pageCount(slabClass);
+    }
+
+    /**
+     * Evicts one entry of the slab class: the hand skips and clears referenced entries
+     * and releases the first one that was not read since the hand last passed it.
+     */
+    private void evict(int slabClass) {
+        Entry hand = clockHands[slabClass];
+        while (hand.referenced) {
+            hand.referenced = false;
+            hand = hand.next;
+        }
+        clockHands[slabClass] = hand;
+        evictions[slabClass]++;
+        log.trace("Evicting value: key1={}, key2={}", hand.key1, hand.key2);
+        timerWheel.deschedule(hand);
+        unlink(hand);
+    }
+
+    private Entry removeEntry(String key1, String key2) {
+        var valueOfKey1 = index.get(key1);
+        if (valueOfKey1 == null) {
+            return null;
+        }
+        var entry = valueOfKey1.remove(key2);
+        if (entry != null) {
+            if (valueOfKey1.isEmpty()) {
+                index.remove(key1);
+            }
+            release(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Removes an entry from the index and releases its resources.
+     */
+    private void unlink(Entry entry) {
+        var valueOfKey1 = index.get(entry.key1);
+        if (valueOfKey1 != null && valueOfKey1.remove(entry.key2, entry) && valueOfKey1.isEmpty()) {
+            index.remove(entry.key1);
+        }
+        unlinkClock(entry);
+        allocator.free(entry.slabClass, entry.address);
+        size--;
+    }
+
+    /**
+     * Releases the resources of an entry that is already removed from the index.
+     */
+    private void release(Entry entry) {
+        timerWheel.deschedule(entry);
+        unlinkClock(entry);
+        allocator.free(entry.slabClass, entry.address);
+        size--;
+    }
+
+    /**
+     * Inserts the entry just behind the clock hand, so it is inspected last.
+     */
+    private void linkClock(Entry entry) {
+        Entry hand = clockHands[entry.slabClass];
+        if (hand == null) {
+            entry.prev = entry;
+            entry.next = entry;
+            clockHands[entry.slabClass] = entry;
+        } else {
+            entry.prev = hand.prev;
+            entry.next = hand;
+            hand.prev.next = entry;
+            hand.prev = entry;
+        }
+    }
+
+    private void unlinkClock(Entry entry) {
+        if (entry.next == entry) {
+            clockHands[entry.slabClass] = null;
+        } else {
+            entry.prev.next = entry.next;
+            entry.next.prev = entry.prev;
+            if (clockHands[entry.slabClass] == entry) {
+                clockHands[entry.slabClass] = entry.next;
+            }
+        }
+        entry.prev = null;
+        entry.next = null;
+    }
+
+    /**
+     * Heap index entry pointing to a value stored in a slab chunk.
+     */
+    private static final class Entry implements TimerWheel.Timer {
+        private final String key1;
+        private final String key2;
+        private final long address;
+        private final int length;
+        private final byte slabClass;
+        private final long expirationTime;
+        private volatile boolean referenced;
+        private Entry prev;
+        private Entry next;
+        private TimerWheel.Timer previousInTimerOrder;
+        private TimerWheel.Timer nextInTimerOrder;
+
+        private Entry(String key1, String key2, long address, int length, byte slabClass, long expirationTime) {
+            this.key1 = key1;
+            this.key2 = key2;
+            this.address = address;
+            this.length = length;
+            this.slabClass = slabClass;
+            this.expirationTime = expirationTime;
+        }
+
+        @Override
+        public long getExpirationTime() {
+            return expirationTime;
+        }
+
+        @Override
+        public TimerWheel.Timer getPreviousInTimerOrder() {
+            return previousInTimerOrder;
+        }
+
+        @Override
+        public void setPreviousInTimerOrder(TimerWheel.Timer timer) {
+            previousInTimerOrder = timer;
+        }
+
+        @Override
+        public TimerWheel.Timer getNextInTimerOrder() {
+            return nextInTimerOrder;
+        }
+
+        @Override
+        public void setNextInTimerOrder(TimerWheel.Timer timer) {
+            nextInTimerOrder = timer;
+        }
+    }
+}
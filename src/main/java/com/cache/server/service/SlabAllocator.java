@@ -0,0 +1,211 @@
+package com.cache.server.service;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Allocates fixed-size chunks of off-heap memory, in the style of a slab allocator.
+ * <p>
+ * Memory is reserved in pages of direct {@link ByteBuffer}s. Each page is assigned to a slab class
+ * on first use and cut into chunks of that class's size; chunk sizes grow geometrically, so a value
+ * wastes at most {@code growthFactor - 1} of its chunk. Freed chunks are reused by the same class,
+ * so allocation never fragments memory and never triggers a compaction. A page whose chunks are all free
+ * can be reassigned to another class, so that the pages follow the sizes of the values being stored.
+ * </p>
+ * <p>
+ * A chunk is addressed by a {@code long} holding the page index in the high and the offset in the
+ * low 32 bits. The allocator is not thread-safe; the owning cache must serialize allocation and
+ * freeing. Reads and writes of distinct chunks may run concurrently.
+ * </p>
+ */
+final class SlabAllocator {
+
+    static final long NO_MEMORY = -1L;
+    private static final int MIN_CHUNK_SIZE = 64;
+
+    private final int pageSize;
+    private final int[] chunkSizes;
+    private final long[][] freeChunks;
+    private final int[] freeCounts;
+    private final int[] pageCounts;
+    private final List<ByteBuffer> pages = new ArrayList<>();
+    private int[] pageClasses = new int[16];
+    private int maxPages;
+
+    /**
+     * @param pageSize     the size of a page in bytes, also the largest value that can be stored.
+     * @param growthFactor the ratio between the chunk sizes of adjacent slab classes.
+     * @param capacity     the total amount of off-heap memory, in bytes.
+     */
+    SlabAllocator(int pageSize, double growthFactor, long capacity) {
+        this.pageSize = pageSize;
+        List<Integer> sizes = new ArrayList<>();
+        for (double size = MIN_CHUNK_SIZE; size < pageSize; size *= growthFactor) {
+            sizes.add(((int) size + 7) & ~7);
+        }
+        sizes.add(pageSize);
+        chunkSizes = sizes.stream().distinct().mapToInt(Integer::intValue).toArray();
+        freeChunks = new long[chunkSizes.length][];
+        freeCounts = new int[chunkSizes.length];
+        pageCounts = new int[chunkSizes.length];
+        for (int i = 0; i < chunkSizes.length; i++) {
+            freeChunks[i] = new long[16];
+        }
+        setCapacity(capacity);
+    }
+
+    /**
+     * Changes the amount of off-heap memory. Pages that are already allocated are kept.
+     *
+     * @param capacity the total amount of off-heap memory, in bytes.
+     */
+    void setCapacity(long capacity) {
+        maxPages = (int) Math.min(Integer.MAX_VALUE, Math.max(1L, capacity / pageSize));
+    }
+
+    /**
+     * Returns the slab class whose chunks fit a value of the given length.
+     *
+     * @param length the value length in bytes.
+     * @return the slab class, or {@code -1} if the value is larger than a page.
+     */
+    int slabClass(int length) {
+        int index = Arrays.binarySearch(chunkSizes, length);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index < chunkSizes.length ? index : -1;
+    }
+
+    int slabClassCount() {
+        return chunkSizes.length;
+    }
+
+    int chunkSize(int slabClass) {
+        return chunkSizes[slabClass];
+    }
+
+    int chunksPerPage(int slabClass) {
+        return pageSize / chunkSizes[slabClass];
+    }
+
+    int pageCount(int slabClass) {
+        return pageCounts[slabClass];
+    }
+
+    /**
+     * Returns the last page assigned to the slab class.
+     *
+     * @param slabClass the slab class.
+     * @return the page index, or {@code -1} if the class has no page.
+     */
+    int lastPage(int slabClass) {
+        for (int page = pages.size() - 1; page >= 0; page--) {
+            if (pageClasses[page] == slabClass) {
+                return page;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves a page to another slab class. All the chunks of the page must have been freed.
+     *
+     * @param page      the page index.
+     * @param slabClass the slab class the page is cut for.
+     */
+    void reassign(int page, int slabClass) {
+        int owner = pageClasses[page];
+        long[] stack = freeChunks[owner];
+        int kept = 0;
+        for (int i = 0; i < freeCounts[owner]; i++) {
+            if (page(stack[i]) != page) {
+                stack[kept++] = stack[i];
+            }
+        }
+        freeCounts[owner] = kept;
+        pageCounts[owner]--;
+        carve(page, slabClass);
+    }
+
+    /**
+     * Allocates a chunk of the given slab class, reserving a new page if the class has no free chunks.
+     *
+     * @param slabClass the slab class.
+     * @return the chunk address, or {@link #NO_MEMORY} if the class is full and no page is left.
+     */
+    long allocate(int slabClass) {
+        if (freeCounts[slabClass] == 0 && !addPage(slabClass)) {
+            return NO_MEMORY;
+        }
+        return freeChunks[slabClass][--freeCounts[slabClass]];
+    }
+
+    /**
+     * Returns a chunk to its slab class.
+     *
+     * @param slabClass the slab class the chunk was allocated from.
+     * @param address   the chunk address.
+     */
+    void free(int slabClass, long address) {
+        push(slabClass, address);
+    }
+
+    void write(long address, byte[] source) {
+        pages.get(page(address)).put(offset(address), source);
+    }
+
+    void read(long address, byte[] destination) {
+        pages.get(page(address)).get(offset(address), destination);
+    }
+
+    /**
+     * Returns the amount of off-heap memory reserved so far.
+     *
+     * @return the reserved memory, in bytes.
+     */
+    long reservedBytes() {
+        return (long) pages.size() * pageSize;
+    }
+
+    private boolean addPage(int slabClass) {
+        if (pages.size() >= maxPages) {
+            return false;
+        }
+        int page = pages.size();
+        pages.add(ByteBuffer.allocateDirect(pageSize));
+        if (page == pageClasses.length) {
+            pageClasses = Arrays.copyOf(pageClasses, page * 2);
+        }
+        carve(page, slabClass);
+        return true;
+    }
+
+    private void carve(int page, int slabClass) {
+        pageClasses[page] = slabClass;
+        pageCounts[slabClass]++;
+        int chunkSize = chunkSizes[slabClass];
+        for (int offset = pageSize - chunkSize - pageSize % chunkSize; offset >= 0; offset -= chunkSize) {
+            push(slabClass, ((long) page << 32) | offset);
+        }
+    }
+
+    private void push(int slabClass, long address) {
+        long[] stack = freeChunks[slabClass];
+        if (freeCounts[slabClass] == stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+            freeChunks[slabClass] = stack;
+        }
+        stack[freeCounts[slabClass]++] = address;
+    }
+
+    static int page(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+}
@@ -0,0 +1,222 @@
+package com.cache.server.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A second cache tier that keeps values evicted from the heap in a memory-mapped local file.
+ * <p>
+ * The file is used as a ring: values are appended at the write position and, once the ring is full,
+ * the oldest values are overwritten, so the tier evicts in FIFO order without any free-space
+ * management. A value never crosses the boundary of a mapped region; if it does not fit, the rest
+ * of the region is skipped. The heap holds only a small index entry per value (key, position, length
+ * and expiration time), grouped by primary key so that all values of a primary key can be removed.
+ * </p>
+ * <p>
+ * The file is scratch space: it is truncated on startup and deleted on close. All methods are
+ * synchronized; the tier is only used on evictions and on misses of the heap tier.
+ * </p>
+ */
+public class SpillStore implements Closeable {
+    private static final long MAX_REGION_SIZE = 1L << 30;
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] regions;
+    private final long regionSize;
+    private final long capacity;
+    private final Map<String, Map<String, Slot>> index = new HashMap<>();
+    private final ArrayDeque<Slot> slots = new ArrayDeque<>();
+    private long writePosition;
+    private int size;
+
+    /**
+     * Creates the file and maps it into memory.
+     *
+     * @param file     the file backing the tier.
+     * @param capacity the size of the file, in bytes.
+     * @throws IOException if the file cannot be created or mapped.
+     */
+    public SpillStore(Path file, long capacity) throws IOException {
+        this.file = file;
+        this.regionSize = Math.min(capacity, MAX_REGION_SIZE);
+        int regionCount = (int) ((capacity + regionSize - 1) / regionSize);
+        this.capacity = regionSize * regionCount;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.regions = new MappedByteBuffer[regionCount];
+        for (int i = 0; i < regionCount; i++) {
+            regions[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * regionSize, regionSize);
+        }
+        log.debug("Initializing SpillStore: file={}, capacity={}", file, this.capacity);
+    }
+
+    /**
+     * A value read from the tier.
+     *
+     * @param value          the encoded value.
+     * @param expirationTime the time at which the value expires, in {@link System#nanoTime()} units.
+     */
+    record Entry(byte[] value, long expirationTime) {
+    }
+
+    /**
+     * Stores a value, replacing the previous value of the key.
+     *
+     * @param key            the key of the value.
+     * @param value          the encoded value.
+     * @param expirationTime the time at which the value expires, in {@link System#nanoTime()} units.
+     * @return {@code true} if the value was stored, {@code false} if it is larger than a region.
+     */
+    synchronized boolean put(CacheKey key, byte[] value, long expirationTime) {
+        if (value.length > regionSize) {
+            return false;
+        }
+        long offset = writePosition % regionSize;
+        if (offset + value.length > regionSize) {
+            writePosition += regionSize - offset;
+        }
+        long end = writePosition + value.length;
+        while (!slots.isEmpty() && slots.peekFirst().position < end - capacity) {
+            discard(slots.pollFirst());
+        }
+        int region = (int) (writePosition % capacity / regionSize);
+        regions[region].put((int) (writePosition % regionSize), value);
+        var slot = new Slot(key, writePosition, value.length, expirationTime);
+        var previous = index.computeIfAbsent(key.getKey1(), k -> new HashMap<>()).put(key.getKey2(), slot);
+        if (previous == null) {
+            size++;
+        }
+        slots.addLast(slot);
+        writePosition = end;
+        return true;
+    }
+
+    /**
+     * Removes a value and returns it if it has not expired.
+     *
+     * @param key the key of the value.
+     * @param now the current time, in {@link System#nanoTime()} units.
+     * @return the value, or {@code null} if the key does not exist or the value has expired.
+     */
+    synchronized Entry take(CacheKey key, long now) {
+        var slot = removeSlot(key.getKey1(), key.getKey2());
+        if (slot == null || slot.expirationTime - now <= 0L) {
+            return null;
+        }
+        byte[] value = new byte[slot.length];
+        regions[(int) (slot.position % capacity / regionSize)].get((int) (slot.position % regionSize), value);
+        return new Entry(value, slot.expirationTime);
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param key1 the primary key.
+     * @param key2 the secondary key.
+     */
+    synchronized void remove(String key1, String key2) {
+        removeSlot(key1, key2);
+    }
+
+    /**
+     * Removes a value and tells whether it was live.
+     *
+     * @param key1 the primary key.
+     * @param key2 the secondary key.
+     * @param now  the current time, in {@link System#nanoTime()} units.
+     * @return {@code true} if a value that had not expired was removed.
+     */
+    synchronized boolean remove(String key1, String key2, long now) {
+        var slot = removeSlot(key1, key2);
+        return slot != null && slot.expirationTime - now > 0L;
+    }
+
+    /**
+     * Removes all values of a primary key.
+     *
+     * @param key1 the primary key.
+     */
+    synchronized void remove(String key1) {
+        var removed = index.remove(key1);
+        if (removed != null) {
+            size -= removed.size();
+        }
+    }
+
+    /**
+     * Returns the number of values in the tier, including the expired ones that have not been overwritten yet.
+     *
+     * @return the number of values.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Closes and deletes the file. The mapped regions are released by the garbage collector.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        index.clear();
+        slots.clear();
+        size = 0;
+        channel.close();
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Removes an overwritten value from the index unless the key has been stored again since.
+     */
+    private void discard(Slot slot) {
+        var key = slot.key;
+        var entries = index.get(key.getKey1());
+        if (entries != null && entries.get(key.getKey2()) == slot) {
+            removeSlot(key.getKey1(), key.getKey2());
+        }
+    }
+
+    private Slot removeSlot(String key1, String key2) {
+        var entries = index.get(key1);
+        if (entries == null) {
+            return null;
+        }
+        var slot = entries.remove(key2);
+        if (slot != null) {
+            size--;
+            if (entries.isEmpty()) {
+                index.remove(key1);
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Index entry of a value in the file.
+     */
+    private static final class Slot {
+        private final CacheKey key;
+        private final long position;
+        private final int length;
+        private final long expirationTime;
+
+        Slot(CacheKey key, long position, int length, long expirationTime) {
+            this.key = key;
+            this.position = position;
+            this.length = length;
+            this.expirationTime = expirationTime;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.cache.server.service;
+
+import java.util.function.Predicate;
+
+/**
+ * A hierarchical timer wheel that indexes cache entries by their expiration time.
+ * <p>
+ * The wheel has five levels with buckets spanning roughly one second, one minute, one hour,
+ * one and a half days and six and a half days. An entry is linked into the bucket of the finest
+ * level that still covers its remaining lifetime. Advancing the wheel only visits the buckets
+ * whose time span has passed: due entries are expired and the others cascade down to a finer
+ * level. Scheduling and removal take constant time, and expiration costs amortized constant time
+ * per entry instead of a scan over the whole cache.
+ * </p>
+ * <p>
+ * The wheel is not thread-safe; the owning cache must serialize all calls.
+ * </p>
+ */
+final class TimerWheel {
+
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+    private static final long[] SPANS = {
+            1L << 30, // 1.07s
+            1L << 36, // 1.14m
+            1L << 42, // 1.22h
+            1L << 47, // 1.63d
+            1L << 49, // 6.5d
+            1L << 49  // 6.5d
+    };
+    private static final int[] SHIFT = {30, 36, 42, 47, 49};
+
+    private final Sentinel[][] wheel;
+    private long nanos;
+
+    TimerWheel(long currentTimeNanos) {
+        nanos = currentTimeNanos;
+        wheel = new Sentinel[BUCKETS.length][];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Sentinel[BUCKETS[i]];
+            for (int j = 0; j < wheel[i].length; j++) {
+                wheel[i][j] = new Sentinel();
+            }
+        }
+    }
+
+    /**
+     * An entry that can be linked into a bucket of the wheel.
+     */
+    interface Timer {
+
+        /**
+         * Returns the time at which the entry expires, in {@link System#nanoTime()} units.
+         */
+        long getExpirationTime();
+
+        Timer getPreviousInTimerOrder();
+
+        void setPreviousInTimerOrder(Timer timer);
+
+        Timer getNextInTimerOrder();
+
+        void setNextInTimerOrder(Timer timer);
+    }
+
+    /**
+     * Advances the wheel to the current time and expires the entries whose time has come.
+     *
+     * @param currentTimeNanos the current time, in {@link System#nanoTime()} units.
+     * @param expirer          removes an expired entry from the cache and returns {@code true};
+     *                         returns {@code false} to keep the entry scheduled.
+     * @return the number of entries passed to the expirer that were removed.
+     */
+    int advance(long currentTimeNanos, Predicate<Timer> expirer) {
+        long previousTimeNanos = nanos;
+        nanos = currentTimeNanos;
+        int expired = 0;
+        for (int i = 0; i < SHIFT.length; i++) {
+            long previousTicks = previousTimeNanos >>> SHIFT[i];
+            long currentTicks = currentTimeNanos >>> SHIFT[i];
+            long delta = currentTicks - previousTicks;
+            if (delta <= 0L) {
+                break;
+            }
+            expired += expire(i, previousTicks, delta, expirer);
+        }
+        return expired;
+    }
+
+    /**
+     * Links an entry into the bucket matching its expiration time.
+     *
+     * @param timer the entry to schedule, must not be scheduled yet.
+     */
+    void schedule(Timer timer) {
+        link(findBucket(timer.getExpirationTime()), timer);
+    }
+
+    /**
+     * Unlinks an entry from its bucket. Ignored if the entry is not scheduled.
+     *
+     * @param timer the entry to remove.
+     */
+    void deschedule(Timer timer) {
+        Timer next = timer.getNextInTimerOrder();
+        if (next != null) {
+            Timer prev = timer.getPreviousInTimerOrder();
+            next.setPreviousInTimerOrder(prev);
+            prev.setNextInTimerOrder(next);
+            timer.setNextInTimerOrder(null);
+            timer.setPreviousInTimerOrder(null);
+        }
+    }
+
+    private int expire(int index, long previousTicks, long delta, Predicate<Timer> expirer) {
+        Sentinel[] timerWheel = wheel[index];
+        int mask = timerWheel.length - 1;
+        int steps = (int) Math.min(1L + delta, timerWheel.length);
+        int start = (int) (previousTicks & mask);
+        int end = start + steps;
+        int expired = 0;
+        for (int i = start; i < end; i++) {
+            Sentinel sentinel = timerWheel[i & mask];
+            Timer node = sentinel.getNextInTimerOrder();
+            sentinel.setPreviousInTimerOrder(sentinel);
+            sentinel.setNextInTimerOrder(sentinel);
+            while (node != sentinel) {
+                Timer next = node.getNextInTimerOrder();
+                node.setPreviousInTimerOrder(null);
+                node.setNextInTimerOrder(null);
+                if (node.getExpirationTime() - nanos <= 0L && expirer.test(node)) {
+                    expired++;
+                } else {
+                    schedule(node);
+                }
+                node = next;
+            }
+        }
+        return expired;
+    }
+
+    private Sentinel findBucket(long time) {
+        long duration = time - nanos;
+        int length = wheel.length - 1;
+        for (int i = 0; i < length; i++) {
+            if (duration < SPANS[i + 1]) {
+                long ticks = time >>> SHIFT[i];
+                int index = (int) (ticks & (wheel[i].length - 1));
+                return wheel[i][index];
+            }
+        }
+        return wheel[length][0];
+    }
+
+    private static void link(Sentinel sentinel, Timer timer) {
+        Timer last = sentinel.getPreviousInTimerOrder();
+        timer.setPreviousInTimerOrder(last);
+        timer.setNextInTimerOrder(sentinel);
+        last.setNextInTimerOrder(timer);
+        sentinel.setPreviousInTimerOrder(timer);
+    }
+
+    /**
+     * The head of a bucket's circular list.
+     */
+    private static final class Sentinel implements Timer {
+        private Timer prev = this;
+        private Timer next = this;
+
+        @Override
+        public long getExpirationTime() {
+            return 0L;
+        }
+
+        @Override
+        public Timer getPreviousInTimerOrder() {
+            return prev;
+        }
+
+        @Override
+        public void setPreviousInTimerOrder(Timer timer) {
+            prev = timer;
+        }
+
+        @Override
+        public Timer getNextInTimerOrder() {
+            return next;
+        }
+
+        @Override
+        public void setNextInTimerOrder(Timer timer) {
+            next = timer;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.cache.server.service;
+
+/**
+ * Converts cached values to bytes and back, for the tiers that keep values outside the Java heap.
+ *
+ * @param <T> the type of values stored in the cache.
+ */
+public interface ValueCodec<T> {
+
+    /**
+     * Encodes a value.
+     *
+     * @param value the value to encode.
+     * @return the encoded value.
+     * @throws IllegalArgumentException if the value cannot be encoded.
+     */
+    byte[] encode(T value);
+
+    /**
+     * Decodes a value produced by {@link #encode(Object)}.
+     *
+     * @param bytes the encoded value.
+     * @return the value.
+     * @throws IllegalStateException if the bytes cannot be decoded.
+     */
+    T decode(byte[] bytes);
+}
@@ -0,0 +1,34 @@
+package com.cache.server.service;
+
+/**
+ * Calculates the weight of a cache entry, i.e. an estimate of the number of bytes it occupies.
+ * <p>
+ * Weights are computed once, when an entry is inserted, and are used to keep the total size
+ * of a cache within its configured budget without sampling the JVM heap.
+ * </p>
+ *
+ * @param <T> the type of values stored in the cache.
+ */
+@FunctionalInterface
+public interface Weigher<T> {
+
+    /**
+     * Returns the weight of a cache entry.
+     *
+     * @param key1  the primary key.
+     * @param key2  the secondary key.
+     * @param value the value to weigh.
+     * @return the estimated size of the entry in bytes, never negative.
+     */
+    int weigh(String key1, String key2, T value);
+
+    /**
+     * Returns a weigher that estimates the retained heap size of keys and values.
+     *
+     * @param <T> the type of values stored in the cache.
+     * @return the default weigher.
+     */
+    static <T> Weigher<T> estimating() {
+        return (key1, key2, value) -> ObjectSizeEstimator.estimateEntry(key1, key2, value);
+    }
+}
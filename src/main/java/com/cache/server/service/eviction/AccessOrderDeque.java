@@ -0,0 +1,82 @@
+package com.cache.server.service.eviction;
+
+/**
+ * Intrusive doubly-linked list of {@link Node}s ordered from the least to the most recently used.
+ */
+final class AccessOrderDeque {
+
+    private final byte queue;
+    private Node first;
+    private Node last;
+    private long weight;
+
+    AccessOrderDeque(byte queue) {
+        this.queue = queue;
+    }
+
+    Node peekFirst() {
+        return first;
+    }
+
+    boolean isEmpty() {
+        return first == null;
+    }
+
+    long weight() {
+        return weight;
+    }
+
+    boolean contains(Node node) {
+        return node.queue == queue;
+    }
+
+    void addLast(Node node) {
+        node.queue = queue;
+        node.prev = last;
+        node.next = null;
+        if (last == null) {
+            first = node;
+        } else {
+            last.next = node;
+        }
+        last = node;
+        weight += node.getWeight();
+    }
+
+    void addBefore(Node successor, Node node) {
+        node.queue = queue;
+        node.prev = successor.prev;
+        node.next = successor;
+        if (successor.prev == null) {
+            first = node;
+        } else {
+            successor.prev.next = node;
+        }
+        successor.prev = node;
+        weight += node.getWeight();
+    }
+
+    void remove(Node node) {
+        if (node.prev == null) {
+            first = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            last = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        node.queue = Node.NONE;
+        weight -= node.getWeight();
+    }
+
+    void moveToBack(Node node) {
+        if (node != last) {
+            remove(node);
+            addLast(node);
+        }
+    }
+}
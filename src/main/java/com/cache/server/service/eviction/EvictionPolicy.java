@@ -0,0 +1,46 @@
+package com.cache.server.service.eviction;
+
+/**
+ * Decides which entry is evicted when a cache exceeds its capacity.
+ * <p>
+ * Implementations are not thread-safe: the owning cache must serialize all calls, for example
+ * by invoking them only while holding its eviction lock. Every operation runs in constant time.
+ * </p>
+ */
+public interface EvictionPolicy {
+
+    /**
+     * Sets the maximum total weight of the cache.
+     *
+     * @param maximum the capacity of the cache in bytes.
+     */
+    void setMaximum(long maximum);
+
+    /**
+     * Starts tracking a newly inserted entry.
+     *
+     * @param node the inserted entry.
+     */
+    void onInsert(Node node);
+
+    /**
+     * Records a read of an entry. Ignored if the entry is not tracked.
+     *
+     * @param node the accessed entry.
+     */
+    void onAccess(Node node);
+
+    /**
+     * Stops tracking an entry. Ignored if the entry is not tracked.
+     *
+     * @param node the removed entry.
+     */
+    void onRemove(Node node);
+
+    /**
+     * Selects the next entry to evict. The entry stays tracked until {@link #onRemove(Node)} is called.
+     *
+     * @return the entry to evict, or {@code null} if no entry is tracked.
+     */
+    Node victim();
+}
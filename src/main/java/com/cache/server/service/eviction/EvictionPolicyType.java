@@ -0,0 +1,34 @@
+package com.cache.server.service.eviction;
+
+import java.util.function.Supplier;
+
+/**
+ * Eviction policies that can be selected through the configuration.
+ */
+public enum EvictionPolicyType {
+
+    /**
+     * Least recently used, see {@link LruEvictionPolicy}.
+     */
+    LRU(LruEvictionPolicy::new),
+
+    /**
+     * Window TinyLFU, see {@link WindowTinyLfuEvictionPolicy}.
+     */
+    W_TINY_LFU(WindowTinyLfuEvictionPolicy::new);
+
+    private final Supplier<EvictionPolicy> factory;
+
+    EvictionPolicyType(Supplier<EvictionPolicy> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Creates a new instance of the policy.
+     *
+     * @return the eviction policy.
+     */
+    public EvictionPolicy create() {
+        return factory.get();
+    }
+}
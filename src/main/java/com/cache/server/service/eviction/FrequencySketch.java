@@ -0,0 +1,113 @@
+package com.cache.server.service.eviction;
+
+/**
+ * A probabilistic multiset estimating how often keys were accessed recently.
+ * <p>
+ * This is a Count-Min sketch with four 4-bit counters per key packed into {@code long} words.
+ * Once the number of recorded accesses reaches ten times the table size all counters are halved,
+ * so the estimate favours recent history and old popularity fades out.
+ * </p>
+ */
+final class FrequencySketch {
+
+    private static final long[] SEED = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final int MINIMUM_CAPACITY = 64;
+
+    private long[] table = new long[MINIMUM_CAPACITY];
+    private int tableMask = MINIMUM_CAPACITY - 1;
+    private int sampleSize = 10 * MINIMUM_CAPACITY;
+    private int size;
+
+    /**
+     * Grows the sketch so that it can track the given number of keys accurately.
+     * The table size stays a power of two, so a key's word in the grown table is its old word plus a multiple
+     * of the old size: the old table is copied into every part of the new one, and the collected statistics
+     * are kept as they are.
+     *
+     * @param expectedSize the number of keys that are tracked.
+     */
+    void ensureCapacity(long expectedSize) {
+        if (expectedSize <= table.length || table.length >= MAXIMUM_CAPACITY) {
+            return;
+        }
+        int capacity = (int) Math.min(MAXIMUM_CAPACITY, Long.highestOneBit(Math.max(expectedSize, 2L * table.length) - 1) << 1);
+        var grown = new long[capacity];
+        for (int offset = 0; offset < capacity; offset += table.length) {
+            System.arraycopy(table, 0, grown, offset, table.length);
+        }
+        table = grown;
+        tableMask = capacity - 1;
+        sampleSize = (int) Math.min(10L * capacity, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the estimated number of recent accesses of a key, up to 15.
+     *
+     * @param keyHash the hash of the key.
+     * @return the estimated frequency.
+     */
+    int frequency(int keyHash) {
+        int hash = spread(keyHash);
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Records an access of a key.
+     *
+     * @param keyHash the hash of the key.
+     */
+    void increment(int keyHash) {
+        int hash = spread(keyHash);
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        int count = 0;
+        for (int i = 0; i < table.length; i++) {
+            count += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (count >>> 2);
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEED[i]) * SEED[i];
+        h += h >>> 32;
+        return ((int) h) & tableMask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -0,0 +1,38 @@
+package com.cache.server.service.eviction;
+
+/**
+ * Evicts the least recently used entry.
+ */
+public class LruEvictionPolicy implements EvictionPolicy {
+
+    private final AccessOrderDeque deque = new AccessOrderDeque(Node.WINDOW);
+
+    @Override
+    public void setMaximum(long maximum) {
+        // recency alone decides the victim, the capacity is not needed
+    }
+
+    @Override
+    public void onInsert(Node node) {
+        deque.addLast(node);
+    }
+
+    @Override
+    public void onAccess(Node node) {
+        if (deque.contains(node)) {
+            deque.moveToBack(node);
+        }
+    }
+
+    @Override
+    public void onRemove(Node node) {
+        if (deque.contains(node)) {
+            deque.remove(node);
+        }
+    }
+
+    @Override
+    public Node victim() {
+        return deque.peekFirst();
+    }
+}
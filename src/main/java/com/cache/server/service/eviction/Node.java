@@ -0,0 +1,43 @@
+package com.cache.server.service.eviction;
+
+/**
+ * An entry tracked by an {@link EvictionPolicy}.
+ * <p>
+ * The links are embedded in the cache entry itself, so a policy needs no additional lookup
+ * structure and every operation on it takes constant time.
+ * </p>
+ */
+public abstract class Node {
+
+    static final byte NONE = 0;
+    static final byte WINDOW = 1;
+    static final byte PROBATION = 2;
+    static final byte PROTECTED = 3;
+
+    Node prev;
+    Node next;
+    byte queue = NONE;
+
+    /**
+     * Returns the weight of the entry.
+     *
+     * @return the weight of the entry in bytes.
+     */
+    public abstract int getWeight();
+
+    /**
+     * Returns the hash of the entry key used for frequency estimation.
+     *
+     * @return the key hash.
+     */
+    public abstract int keyHash();
+
+    /**
+     * Returns whether the node is currently tracked by a policy.
+     *
+     * @return {@code true} if the node is linked into one of the policy queues.
+     */
+    public boolean isLinked() {
+        return queue != NONE;
+    }
+}
@@ -0,0 +1,186 @@
+package com.cache.server.service.eviction;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Window TinyLFU eviction policy.
+ * <p>
+ * New entries enter a small LRU admission window (1% of the capacity). Entries leaving the window
+ * move to the probation segment of the main space, where they compete with the least recently used
+ * probation entry: when space is needed, the one with the lower estimated access frequency
+ * (see {@link FrequencySketch}) is evicted. A probation entry that is read again is promoted to the
+ * protected segment (80% of the main space), which is demoted back to probation in LRU order.
+ * </p>
+ * <p>
+ * The window lets bursts of new keys build up frequency, the frequency filter keeps one-hit wonders
+ * and scans from flushing popular entries, and the segmented LRU keeps the recency signal.
+ * </p>
+ */
+public class WindowTinyLfuEvictionPolicy implements EvictionPolicy {
+
+    private static final double WINDOW_PERCENTAGE = 0.01d;
+    private static final double PROTECTED_PERCENTAGE = 0.80d;
+    private static final int ADMIT_HASHDOS_THRESHOLD = 6;
+
+    private final FrequencySketch sketch = new FrequencySketch();
+    private final AccessOrderDeque window = new AccessOrderDeque(Node.WINDOW);
+    private final AccessOrderDeque probation = new AccessOrderDeque(Node.PROBATION);
+    private final AccessOrderDeque protectedDeque = new AccessOrderDeque(Node.PROTECTED);
+    private long maximum;
+    private long windowMaximum;
+    private long protectedMaximum;
+    private long size;
+
+    /**
+     * The oldest entry that moved from the window to probation while the cache was full and has not yet
+     * competed for admission. All probation entries after it are candidates as well, the entries before it
+     * are residents.
+     */
+    private Node candidate;
+
+    public WindowTinyLfuEvictionPolicy() {
+        setMaximum(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void setMaximum(long maximum) {
+        this.maximum = maximum;
+        windowMaximum = Math.max(1L, (long) (maximum * WINDOW_PERCENTAGE));
+        protectedMaximum = (long) ((maximum - windowMaximum) * PROTECTED_PERCENTAGE);
+    }
+
+    @Override
+    public void onInsert(Node node) {
+        sketch.ensureCapacity(++size);
+        sketch.increment(node.keyHash());
+        window.addLast(node);
+        while (window.weight() > windowMaximum) {
+            Node first = window.peekFirst();
+            window.remove(first);
+            addToProbation(first);
+        }
+    }
+
+    @Override
+    public void onAccess(Node node) {
+        if (!node.isLinked()) {
+            return;
+        }
+        sketch.increment(node.keyHash());
+        switch (node.queue) {
+            case Node.WINDOW -> window.moveToBack(node);
+            case Node.PROTECTED -> protectedDeque.moveToBack(node);
+            case Node.PROBATION -> {
+                removeFromProbation(node);
+                protectedDeque.addLast(node);
+                while (protectedDeque.weight() > protectedMaximum) {
+                    demote(protectedDeque.peekFirst());
+                }
+            }
+            default -> throw new IllegalStateException("Unknown queue: " + node.queue);
+        }
+    }
+
+    @Override
+    public void onRemove(Node node) {
+        switch (node.queue) {
+            case Node.NONE -> {
+                return;
+            }
+            case Node.WINDOW -> window.remove(node);
+            case Node.PROBATION -> removeFromProbation(node);
+            case Node.PROTECTED -> protectedDeque.remove(node);
+            default -> throw new IllegalStateException("Unknown queue: " + node.queue);
+        }
+        size--;
+    }
+
+    /**
+     * Returns the entry to evict. A candidate competes with the least recently used probation resident,
+     * or, if probation holds only candidates, with the least recently used protected entry or the next
+     * candidate. The winner becomes a resident.
+     */
+    @Override
+    public Node victim() {
+        Node victim = probation.peekFirst();
+        if (victim == null) {
+            victim = protectedDeque.peekFirst();
+            return victim != null ? victim : window.peekFirst();
+        }
+        if (candidate == null) {
+            return victim;
+        }
+        Node challenger = candidate;
+        if (victim == candidate) {
+            Node resident = protectedDeque.peekFirst();
+            if (resident != null) {
+                victim = resident;
+            } else if (victim.next != null) {
+                challenger = victim.next;
+            } else {
+                return victim;
+            }
+        }
+        candidate = challenger.next;
+        return admit(challenger, victim) ? victim : challenger;
+    }
+
+    /**
+     * Decides whether the candidate should replace the victim in the main space.
+     * A warm candidate that loses is still admitted with a small probability, so an attacker
+     * cannot pin a victim forever by flooding its hash collisions.
+     */
+    private boolean admit(Node candidate, Node victim) {
+        int candidateFrequency = sketch.frequency(candidate.keyHash());
+        int victimFrequency = sketch.frequency(victim.keyHash());
+        if (candidateFrequency > victimFrequency) {
+            return true;
+        }
+        if (candidateFrequency < ADMIT_HASHDOS_THRESHOLD) {
+            return false;
+        }
+        return (ThreadLocalRandom.current().nextInt() & 127) == 0;
+    }
+
+    /**
+     * Moves an entry leaving the window to probation. It competes for admission only if the cache is full,
+     * an entry arriving while there is free space is admitted as it is.
+     */
+    private void addToProbation(Node node) {
+        if (window.weight() + probation.weight() + protectedDeque.weight() + node.getWeight() <= maximum) {
+            addResident(node);
+            return;
+        }
+        probation.addLast(node);
+        if (candidate == null) {
+            candidate = node;
+        }
+    }
+
+    /**
+     * Moves a protected entry back to probation. It has already been admitted once,
+     * so it does not compete again.
+     */
+    private void demote(Node node) {
+        protectedDeque.remove(node);
+        addResident(node);
+    }
+
+    /**
+     * Adds an admitted entry to probation, before the candidates.
+     */
+    private void addResident(Node node) {
+        if (candidate == null) {
+            probation.addLast(node);
+        } else {
+            probation.addBefore(candidate, node);
+        }
+    }
+
+    private void removeFromProbation(Node node) {
+        if (node == candidate) {
+            candidate = node.next;
+        }
+        probation.remove(node);
+    }
+}
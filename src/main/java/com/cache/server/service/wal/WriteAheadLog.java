@@ -0,0 +1,454 @@
+package com.cache.server.service.wal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * A local append-only log that makes cache writes durable without a database round trip.
+ * <p>
+ * Writers enqueue their records and receive a future. A single log thread drains everything queued
+ * since its previous pass, appends it to the active segment with one gathering write and forces it
+ * to disk with one {@code fsync}, then completes all the futures of the batch (group commit). The more
+ * writers wait, the more records share one {@code fsync}.
+ * </p>
+ * <p>
+ * The log is split into segments of a configured size. A full segment is sealed and a new one is
+ * started. Once enough sealed segments accumulate, they are compacted in the background into one
+ * segment that keeps only the latest unexpired record per key. The compacted segment is named after
+ * the last input, so on open every older segment is known to be redundant and is deleted, even if
+ * the previous compaction was interrupted.
+ * </p>
+ * <p>
+ * Every record carries a CRC32 checksum. Replay stops at the first torn or corrupt record of
+ * a segment, which can only be the tail of the segment that was active during a crash. A batch whose
+ * write or {@code fsync} fails is truncated away, so later batches never follow torn bytes; if the
+ * truncation fails too, the log stops accepting appends.
+ * </p>
+ */
+public class WriteAheadLog implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final String COMPACTED_SUFFIX = ".compacted";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final int MAX_BATCH = 1024;
+    /**
+     * Size of the record header: payload length and payload checksum.
+     */
+    private static final int HEADER = 8;
+    private static final int MAX_RECORD = 64 * 1024 * 1024;
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final Path directory;
+    private final long segmentSize;
+    private final int compactionThreshold;
+    private final BlockingQueue<Append> queue = new LinkedBlockingQueue<>();
+    private final List<Path> sealed = new ArrayList<>();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "wal-compactor"));
+    private final Thread writer;
+    private FileChannel active;
+    private long activeSequence;
+    private boolean compacting;
+    private volatile boolean running = true;
+    private volatile IOException failure;
+
+    /**
+     * Opens the log in the given directory, removes the segments made redundant by a compaction
+     * and starts a new active segment. The existing segments can be read with {@link #replay(Consumer)}.
+     *
+     * @param directory           the directory of the segment files, created if missing.
+     * @param segmentSize         the size, in bytes, after which the active segment is sealed.
+     * @param compactionThreshold the number of sealed segments that triggers a compaction.
+     * @throws IOException if the directory cannot be read or the segment cannot be created.
+     */
+    public WriteAheadLog(Path directory, long segmentSize, int compactionThreshold) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.compactionThreshold = Math.max(2, compactionThreshold);
+        Files.createDirectories(directory);
+        sealed.addAll(recoverSegments());
+        activeSequence = sealed.isEmpty() ? 1 : sequence(sealed.get(sealed.size() - 1)) + 1;
+        active = openSegment(activeSequence);
+        writer = daemon(this::writeLoop, "wal-writer");
+        writer.start();
+        log.debug("Write-ahead log opened: directory={}, segments={}, activeSequence={}", directory, sealed.size(), activeSequence);
+    }
+
+    /**
+     * A logged cache write.
+     *
+     * @param key1      the primary key.
+     * @param key2      the secondary key.
+     * @param value     the encoded value.
+     * @param expiresAt the expiration time, in epoch milliseconds.
+     */
+    public record Entry(String key1, String key2, byte[] value, long expiresAt) {
+
+        /**
+         * Returns whether the entry has expired.
+         *
+         * @param now the current time, in epoch milliseconds.
+         * @return {@code true} if the entry is no longer valid.
+         */
+        public boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
+
+    /**
+     * Appends an entry to the log.
+     *
+     * @param entry the entry to append.
+     * @return a future completed once the entry has been forced to disk.
+     */
+    public CompletableFuture<Void> append(Entry entry) {
+        Append append;
+        try {
+            append = new Append(encode(entry), new CompletableFuture<>());
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (append.record.remaining() - HEADER > MAX_RECORD) {
+            append.future.completeExceptionally(new IllegalArgumentException("Value is too large for the write-ahead log"));
+            return append.future;
+        }
+        if (failure != null) {
+            append.future.completeExceptionally(new IllegalStateException("Write-ahead log has failed", failure));
+            return append.future;
+        }
+        if (!running) {
+            append.future.completeExceptionally(new IllegalStateException("Write-ahead log is closed"));
+            return append.future;
+        }
+        queue.add(append);
+        return append.future;
+    }
+
+    /**
+     * Reads the entries of all segments that existed when the log was opened, oldest first.
+     * A later entry of a key supersedes the earlier ones; an expired entry means the key is gone.
+     *
+     * @param consumer receives the entries.
+     * @throws IOException if a segment cannot be read.
+     */
+    public void replay(Consumer<Entry> consumer) throws IOException {
+        List<Path> segments;
+        synchronized (sealed) {
+            segments = List.copyOf(sealed);
+        }
+        for (Path segment : segments) {
+            read(segment, consumer);
+        }
+    }
+
+    /**
+     * Writes the queued entries, waits for a running compaction and closes the log.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+            compactor.shutdown();
+            compactor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            active.close();
+        }
+        log.debug("Write-ahead log closed: directory={}", directory);
+    }
+
+    private void writeLoop() {
+        List<Append> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                write(batch);
+                batch.forEach(append -> append.future.complete(null));
+                log.trace("Group commit: records={}", batch.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (Exception e) {
+                log.error("Failed to write {} records to the write-ahead log", batch.size(), e);
+                batch.forEach(append -> append.future.completeExceptionally(e));
+            }
+            batch.clear();
+        }
+        Append append;
+        while ((append = queue.poll()) != null) {
+            append.future.completeExceptionally(new IllegalStateException("Write-ahead log is closed"));
+        }
+    }
+
+    private synchronized void write(List<Append> batch) throws IOException {
+        if (failure != null) {
+            throw new IllegalStateException("Write-ahead log has failed", failure);
+        }
+        var buffers = new ByteBuffer[batch.size()];
+        long length = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = batch.get(i).record;
+            length += buffers[i].remaining();
+        }
+        long start = active.position();
+        try {
+            while (length > 0) {
+                length -= active.write(buffers);
+            }
+            active.force(false);
+        } catch (IOException e) {
+            discard(start, e);
+            throw e;
+        }
+        if (active.size() >= segmentSize) {
+            rotate();
+        }
+    }
+
+    /**
+     * Truncates the active segment to the end of the last batch that was written, or fails the log.
+     */
+    private void discard(long start, IOException cause) {
+        try {
+            active.truncate(start);
+            active.force(false);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+            failure = cause;
+            log.error("Write-ahead log segment cannot be truncated, appends are rejected: activeSequence={}",
+                    activeSequence, e);
+        }
+    }
+
+    private void rotate() throws IOException {
+        active.close();
+        boolean compact;
+        synchronized (sealed) {
+            sealed.add(segmentPath(activeSequence, SEGMENT_SUFFIX));
+            compact = !compacting && sealed.size() >= compactionThreshold;
+            compacting |= compact;
+        }
+        activeSequence++;
+        active = openSegment(activeSequence);
+        log.debug("Write-ahead log segment rotated: activeSequence={}", activeSequence);
+        if (compact) {
+            compactor.execute(this::compact);
+        }
+    }
+
+    /**
+     * Rewrites the sealed segments into one segment that keeps the latest unexpired entry per key.
+     */
+    private void compact() {
+        List<Path> inputs;
+        synchronized (sealed) {
+            inputs = List.copyOf(sealed);
+        }
+        try {
+            Map<String, Entry> latest = new LinkedHashMap<>();
+            for (Path input : inputs) {
+                read(input, entry -> {
+                    String key = entry.key1() + '\u0000' + entry.key2();
+                    latest.remove(key);
+                    latest.put(key, entry);
+                });
+            }
+            long now = System.currentTimeMillis();
+            long sequence = sequence(inputs.get(inputs.size() - 1));
+            Path temporary = segmentPath(sequence, TEMPORARY_SUFFIX);
+            try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE)) {
+                for (Entry entry : latest.values()) {
+                    if (!entry.isExpired(now)) {
+                        var record = encode(entry);
+                        while (record.hasRemaining()) {
+                            channel.write(record);
+                        }
+                    }
+                }
+                channel.force(true);
+            }
+            Path compacted = segmentPath(sequence, COMPACTED_SUFFIX);
+            Files.move(temporary, compacted, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            synchronized (sealed) {
+                sealed.removeAll(inputs);
+                sealed.add(0, compacted);
+            }
+            for (Path input : inputs) {
+                if (!input.equals(compacted)) {
+                    Files.deleteIfExists(input);
+                }
+            }
+            log.debug("Write-ahead log compacted: segments={}, entries={}", inputs.size(), latest.size());
+        } catch (Exception e) {
+            log.error("Failed to compact the write-ahead log", e);
+        } finally {
+            synchronized (sealed) {
+                compacting = false;
+            }
+        }
+    }
+
+    /**
+     * Lists the segments in replay order and deletes the ones superseded by the newest compacted segment.
+     */
+    private List<Path> recoverSegments() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(path -> sequence(path) > 0).sorted((a, b) -> Long.compare(sequence(a), sequence(b))).toList();
+        }
+        long compactedSequence = 0;
+        for (Path file : files) {
+            if (file.toString().endsWith(COMPACTED_SUFFIX)) {
+                compactedSequence = Math.max(compactedSequence, sequence(file));
+            }
+        }
+        List<Path> segments = new ArrayList<>();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long sequence = sequence(file);
+            boolean superseded = sequence < compactedSequence
+                    || sequence == compactedSequence && !name.endsWith(COMPACTED_SUFFIX);
+            if (superseded || name.endsWith(TEMPORARY_SUFFIX)) {
+                log.debug("Deleting redundant write-ahead log file: {}", file);
+                Files.delete(file);
+            } else {
+                segments.add(file);
+            }
+        }
+        return segments;
+    }
+
+    private void read(Path segment, Consumer<Entry> consumer) throws IOException {
+        var crc = new CRC32();
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), 64 * 1024))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                try {
+                    int checksum = in.readInt();
+                    if (length < 0 || length > MAX_RECORD) {
+                        log.warn("Corrupt write-ahead log record, the rest of {} is skipped", segment);
+                        return;
+                    }
+                    byte[] payload = in.readNBytes(length);
+                    crc.reset();
+                    crc.update(payload);
+                    if (payload.length < length || (int) crc.getValue() != checksum) {
+                        log.warn("Torn write-ahead log record, the rest of {} is skipped", segment);
+                        return;
+                    }
+                    consumer.accept(decode(ByteBuffer.wrap(payload)));
+                } catch (EOFException e) {
+                    log.warn("Torn write-ahead log record, the rest of {} is skipped", segment);
+                    return;
+                }
+            }
+        }
+    }
+
+    private static ByteBuffer encode(Entry entry) {
+        byte[] key1 = entry.key1().getBytes(StandardCharsets.UTF_8);
+        byte[] key2 = entry.key2().getBytes(StandardCharsets.UTF_8);
+        if (key1.length > 0xFFFF || key2.length > 0xFFFF) {
+            throw new IllegalArgumentException("Key is too long for the write-ahead log");
+        }
+        int length = 8 + 2 + key1.length + 2 + key2.length + entry.value().length;
+        var buffer = ByteBuffer.allocate(HEADER + length);
+        buffer.putInt(length).putInt(0)
+                .putLong(entry.expiresAt())
+                .putShort((short) key1.length).put(key1)
+                .putShort((short) key2.length).put(key2)
+                .put(entry.value());
+        var crc = new CRC32();
+        crc.update(buffer.array(), HEADER, length);
+        buffer.putInt(4, (int) crc.getValue());
+        return buffer.flip();
+    }
+
+    private static Entry decode(ByteBuffer payload) {
+        long expiresAt = payload.getLong();
+        String key1 = readString(payload);
+        String key2 = readString(payload);
+        byte[] value = new byte[payload.remaining()];
+        payload.get(value);
+        return new Entry(key1, key2, value, expiresAt);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private FileChannel openSegment(long sequence) throws IOException {
+        return FileChannel.open(segmentPath(sequence, SEGMENT_SUFFIX), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private Path segmentPath(long sequence, String suffix) {
+        return directory.resolve(String.format("%020d%s", sequence, suffix));
+    }
+
+    /**
+     * Returns the sequence number of a log file, or {@code -1} if the file does not belong to the log.
+     */
+    private static long sequence(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.indexOf('.');
+        if (dot <= 0 || !(name.endsWith(SEGMENT_SUFFIX) || name.endsWith(COMPACTED_SUFFIX) || name.endsWith(TEMPORARY_SUFFIX))) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(0, dot));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private record Append(ByteBuffer record, CompletableFuture<Void> future) {
+    }
+}
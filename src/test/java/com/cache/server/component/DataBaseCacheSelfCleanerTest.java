@@ -2,6 +2,7 @@ package com.cache.server.component;
 
 import com.cache.server.repository.CacheEntity;
 import com.cache.server.repository.CacheRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -35,6 +36,7 @@ public class DataBaseCacheSelfCleanerTest {
                     .secondaryCacheKey(String.valueOf(i * 2))
                     .created(LocalDateTime.now().minusDays(i))
                     .expired(LocalDateTime.now().plusDays(i))
+                    .cacheValue("\"value\"")
                     .build();
             entities.add(cacheEntityValid);
         }
@@ -44,6 +46,7 @@ public class DataBaseCacheSelfCleanerTest {
                 .secondaryCacheKey("expired")
                 .created(LocalDateTime.now().minusDays(1))
                 .expired(LocalDateTime.now().minusDays(2))
+                .cacheValue("\"value\"")
                 .build();
         entities.add(cacheEntityExpired);
         cacheEntityExpired = CacheEntity.builder()
@@ -51,12 +54,18 @@ public class DataBaseCacheSelfCleanerTest {
                 .secondaryCacheKey("expired2")
                 .created(LocalDateTime.now().minusDays(1))
                 .expired(LocalDateTime.now().minusDays(2))
+                .cacheValue("\"value\"")
                 .build();
         entities.add(cacheEntityExpired);
 
         cacheRepository.saveAll(entities);
     }
 
+    @AfterEach
+    void tearDown() {
+        cacheRepository.deleteAll();
+    }
+
     @Test
     void cleanExpiredCacheEntriesTest() {
         dataBaseCacheSelfCleaner.cleanExpiredCache();
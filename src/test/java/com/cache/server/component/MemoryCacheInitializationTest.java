@@ -1,21 +1,28 @@
 package com.cache.server.component;
 
+import com.cache.server.config.CacheProperties;
 import com.cache.server.repository.CacheEntity;
 import com.cache.server.repository.CacheRepository;
 import com.cache.server.service.CacheProvider;
+import com.cache.server.service.CacheService;
 import com.cache.server.service.MemoryCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @SpringBootTest
 @ExtendWith(SpringExtension.class)
@@ -30,6 +37,18 @@ public class MemoryCacheInitializationTest {
     @Autowired
     private CacheRepository cacheRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     private MemoryCache<Object> memoryCacheOriginal;
 
     @BeforeEach
@@ -44,6 +63,7 @@ public class MemoryCacheInitializationTest {
                     .secondaryCacheKey(String.valueOf(i * 2))
                     .created(LocalDateTime.now().minusDays(i))
                     .expired(LocalDateTime.now().plusDays(i))
+                    .cacheValue("\"value\"")
                     .build();
            entities.add(cacheEntityValid);
         }
@@ -53,14 +73,24 @@ public class MemoryCacheInitializationTest {
                 .secondaryCacheKey("expired")
                 .created(LocalDateTime.now().minusDays(1))
                 .expired(LocalDateTime.now().minusDays(2))
+                .cacheValue("\"value\"")
                 .build();
         entities.add(cacheEntityExpired);
 
         cacheRepository.saveAll(entities);
     }
 
+    @AfterEach
+    void tearDown() {
+        cacheRepository.deleteAll();
+        memoryCacheOriginal.remove("removed");
+        for (int i = 1; i <= 10; i++) {
+            memoryCacheOriginal.remove(String.valueOf(i));
+        }
+    }
+
+    // данные должны быть закоммичены: разделы таблицы загружаются из других потоков
     @Test
-    @Transactional(readOnly = true)
     void testCacheInitialization() {
         int startSize = memoryCacheOriginal.size();
         memoryCacheInitialization.init();
@@ -68,4 +98,27 @@ public class MemoryCacheInitializationTest {
         Assertions.assertEquals(0, startSize);
         Assertions.assertEquals(10, initialSize);
     }
+
+    @Test
+    void keysRemovedAfterSnapshotAreNotRestoredTest() {
+        var restoredKeys = List.of(
+                new CacheService.Key("1", "2"),
+                new CacheService.Key("removed", "1"),
+                new CacheService.Key("1", "expired"));
+        var snapshot = new MemoryCacheSnapshot(memoryCache, null, cacheProperties) {
+            @Override
+            public Restored load() {
+                restoredKeys.forEach(key -> memoryCache.set(key.key1(), key.key2(), "snapshot", 3600L));
+                return new Restored(LocalDateTime.now(), restoredKeys);
+            }
+        };
+        var initialization = new MemoryCacheInitialization(jdbcTemplate, transactionManager, memoryCache,
+                cacheProperties, objectMapper, Optional.empty(), Optional.of(snapshot));
+
+        initialization.init();
+
+        Assertions.assertEquals("snapshot", memoryCache.get("1", "2"));
+        Assertions.assertNull(memoryCache.get("removed", "1"));
+        Assertions.assertNull(memoryCache.get("1", "expired"));
+    }
 }
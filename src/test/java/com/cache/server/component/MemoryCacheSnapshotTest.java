@@ -0,0 +1,87 @@
+package com.cache.server.component;
+
+import com.cache.server.config.CacheProperties;
+import com.cache.server.service.MemoryCache;
+import com.cache.server.service.ValueCodec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class MemoryCacheSnapshotTest {
+
+    private static final ValueCodec<Object> CODEC = new ValueCodec<>() {
+        @Override
+        public byte[] encode(Object value) {
+            return value.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Object decode(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    @TempDir
+    private Path directory;
+    private CacheProperties cacheProperties;
+
+    @BeforeEach
+    void setUp() {
+        cacheProperties = new CacheProperties();
+        cacheProperties.getMemory().getSnapshot().setFile(directory.resolve("cache.snapshot").toString());
+    }
+
+    @Test
+    void snapshotIsLoadedIntoEmptyCacheTest() {
+        var memoryCache = newMemoryCache();
+        for (int i = 0; i < 1000; i++) {
+            memoryCache.set(String.valueOf(i % 10), String.valueOf(i), "value" + i, 3600L);
+        }
+        memoryCache.set("expiring", "1", "value", 1L);
+        var snapshot = new MemoryCacheSnapshot(memoryCache, CODEC, cacheProperties);
+        snapshot.start();
+        snapshot.save();
+
+        var restored = newMemoryCache();
+        Assertions.assertNotNull(new MemoryCacheSnapshot(restored, CODEC, cacheProperties).load());
+        Assertions.assertEquals(1000, restored.size());
+        Assertions.assertEquals("value77", restored.get("7", "77"));
+        Assertions.assertNull(restored.get("expiring", "1"));
+    }
+
+    @Test
+    void snapshotIsNotSavedBeforeStartTest() {
+        new MemoryCacheSnapshot(newMemoryCache(), CODEC, cacheProperties).save();
+        Assertions.assertFalse(Files.exists(directory.resolve("cache.snapshot")));
+    }
+
+    @Test
+    void truncatedSnapshotIsIgnoredTest() throws IOException {
+        var memoryCache = newMemoryCache();
+        for (int i = 0; i < 10; i++) {
+            memoryCache.set("1", String.valueOf(i), "value" + i, 3600L);
+        }
+        var snapshot = new MemoryCacheSnapshot(memoryCache, CODEC, cacheProperties);
+        snapshot.start();
+        snapshot.save();
+        var file = directory.resolve("cache.snapshot");
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+        var restored = newMemoryCache();
+        Assertions.assertNull(new MemoryCacheSnapshot(restored, CODEC, cacheProperties).load());
+        Assertions.assertEquals(0, restored.size());
+    }
+
+    private static MemoryCache<Object> newMemoryCache() {
+        var memoryCache = new MemoryCache<>();
+        memoryCache.selfCleanerStart(3600, 3600);
+        return memoryCache;
+    }
+}
@@ -0,0 +1,98 @@
+package com.cache.server.controller;
+
+import com.cache.server.dto.CacheResponse;
+import com.cache.server.service.JsonValue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.EncoderHttpMessageWriter;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+public class CacheResponseWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CacheResponseWriter writer =
+            new CacheResponseWriter(new EncoderHttpMessageWriter<>(new Jackson2JsonEncoder(objectMapper)));
+
+    @Test
+    void writeEncodedValueTest() throws IOException {
+        var value = List.of(Map.of("id", 1, "roles", List.of("USER", "ADMIN")));
+        var response = write(new CacheResponse(JsonValue.encode(objectMapper, value)));
+        Assertions.assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        Assertions.assertEquals(objectMapper.readTree("{\"value\":[{\"id\":1,\"roles\":[\"USER\",\"ADMIN\"]}]}"),
+                objectMapper.readTree(response.getBodyAsString().block()));
+        Assertions.assertEquals(response.getBodyAsString().block().length(), response.getHeaders().getContentLength());
+    }
+
+    @Test
+    void writeObjectValueTest() {
+        var response = write(new CacheResponse(Map.of("id", 1)));
+        Assertions.assertEquals("{\"value\":{\"id\":1}}", response.getBodyAsString().block());
+    }
+
+    @Test
+    void writeCompressedValueTest() throws IOException {
+        var value = JsonValue.encode(objectMapper, users()).compress();
+        Assertions.assertTrue(value.isCompressed());
+        var request = MockServerHttpRequest.post("/api/cache/get").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate").build();
+        var response = write(new CacheResponse(value), request);
+        Assertions.assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        byte[] body = response.getBody()
+                .reduce(new byte[0], (bytes, buffer) -> {
+                    byte[] result = new byte[bytes.length + buffer.readableByteCount()];
+                    System.arraycopy(bytes, 0, result, 0, bytes.length);
+                    buffer.read(result, bytes.length, buffer.readableByteCount());
+                    return result;
+                })
+                .block();
+        Assertions.assertEquals(body.length, response.getHeaders().getContentLength());
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            Assertions.assertEquals("{\"value\":" + objectMapper.writeValueAsString(users()) + "}",
+                    new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void writeCompressedValueWithoutGzipTest() throws IOException {
+        var value = JsonValue.encode(objectMapper, users()).compress();
+        var request = MockServerHttpRequest.post("/api/cache/get").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0").build();
+        var response = write(new CacheResponse(value), request);
+        Assertions.assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        Assertions.assertEquals("{\"value\":" + objectMapper.writeValueAsString(users()) + "}", response.getBodyAsString().block());
+    }
+
+    private static List<Map<String, Object>> users() {
+        return IntStream.range(0, 100)
+                .<Map<String, Object>>mapToObj(i -> Map.of("id", i, "roles", List.of("USER", "ADMIN")))
+                .toList();
+    }
+
+    private MockServerHttpResponse write(CacheResponse cacheResponse, MockServerHttpRequest request) {
+        var response = new MockServerHttpResponse();
+        var type = ResolvableType.forClass(CacheResponse.class);
+        writer.write(Mono.just(cacheResponse), type, type, MediaType.APPLICATION_JSON, request, response, Map.of()).block();
+        return response;
+    }
+
+    private MockServerHttpResponse write(CacheResponse cacheResponse) {
+        var response = new MockServerHttpResponse();
+        var type = ResolvableType.forClass(CacheResponse.class);
+        Assertions.assertTrue(writer.canWrite(type, MediaType.APPLICATION_JSON));
+        writer.write(Mono.just(cacheResponse), type, MediaType.APPLICATION_JSON, response, Map.of()).block();
+        return response;
+    }
+}
@@ -0,0 +1,68 @@
+package com.cache.server.kafka;
+
+import com.cache.server.CacheServerApplication;
+import com.cache.server.dto.CacheSetRequest;
+import com.cache.server.service.DefaultCacheManager;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class ConsumerSynchronizationTest {
+
+    private final List<List<CacheSetRequest>> applied = new ArrayList<>();
+    private ConsumerSynchronization consumerSynchronization;
+
+    @BeforeEach
+    void setUp() {
+        var cacheManager = new DefaultCacheManager(null, null, null) {
+            @Override
+            public Mono<Void> storeAll(List<CacheSetRequest> requests) {
+                return Mono.delay(Duration.ofMillis(100)).then(Mono.fromRunnable(() -> applied.add(requests)));
+            }
+        };
+        consumerSynchronization = new ConsumerSynchronization(cacheManager);
+    }
+
+    @Test
+    void batchIsAppliedBeforeReturningTest() {
+        consumerSynchronization.consume(List.of(
+                record("1", "1", "first", UUID.randomUUID()),
+                record("1", "2", "value", UUID.randomUUID()),
+                record("1", "1", "second", UUID.randomUUID())));
+
+        Assertions.assertEquals(1, applied.size());
+        var batch = applied.get(0);
+        Assertions.assertEquals(2, batch.size());
+        Assertions.assertEquals("second", batch.get(0).getValue());
+        Assertions.assertEquals("value", batch.get(1).getValue());
+    }
+
+    @Test
+    void ownUpdatesAreSkippedTest() {
+        consumerSynchronization.consume(List.of(record("1", "1", "own", CacheServerApplication.ID)));
+
+        Assertions.assertTrue(applied.isEmpty());
+    }
+
+    @Test
+    void malformedRecordIsSkippedTest() {
+        var malformed = new ConsumerRecord<String, CacheSetRequest>("topic", 0, 1L, "1", null);
+        consumerSynchronization.consume(List.of(malformed, record("1", "2", "value", UUID.randomUUID())));
+
+        Assertions.assertEquals(1, applied.size());
+        Assertions.assertEquals(1, applied.get(0).size());
+    }
+
+    private static ConsumerRecord<String, CacheSetRequest> record(String key1, String key2, Object value, UUID appId) {
+        var record = new ConsumerRecord<>("topic", 0, 0L, key1, new CacheSetRequest(key1, key2, null, value));
+        record.headers().add(ProducerSynchronization.APP_ID, appId.toString().getBytes());
+        return record;
+    }
+}
@@ -0,0 +1,81 @@
+package com.cache.server.kafka;
+
+import com.cache.server.config.KafkaProperties;
+import com.cache.server.dto.CacheSetRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class ReplicationCoalescerTest {
+
+    private final List<CacheSetRequest> sent = new CopyOnWriteArrayList<>();
+    private ReplicationCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        var kafkaProperties = new KafkaProperties();
+        kafkaProperties.getCoalescing().setWindow(60_000);
+        kafkaProperties.getCoalescing().setCapacity(3);
+        var producerSynchronization = new ProducerSynchronization(null, null, kafkaProperties) {
+            @Override
+            public CompletableFuture<?> sendMessage(CacheSetRequest message) {
+                sent.add(message);
+                return CompletableFuture.completedFuture(null);
+            }
+        };
+        coalescer = new ReplicationCoalescer(producerSynchronization, kafkaProperties, Optional.empty());
+    }
+
+    @Test
+    void latestUpdateOfKeyIsSentTest() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            coalescer.submit(new CacheSetRequest("hot", "1", null, "value" + i));
+        }
+        coalescer.submit(new CacheSetRequest("cold", "1", null, "value"));
+
+        Assertions.assertEquals(2, coalescer.pending());
+        Assertions.assertEquals(99, coalescer.coalesced());
+        Assertions.assertTrue(sent.isEmpty());
+
+        coalescer.close();
+
+        Assertions.assertEquals(2, sent.size());
+        Assertions.assertEquals("value99", sent.get(0).getValue());
+        Assertions.assertEquals("cold", sent.get(1).getPrimaryCacheKey());
+    }
+
+    @Test
+    void discardedUpdateIsNotSentTest() throws InterruptedException {
+        coalescer.submit(new CacheSetRequest("evicted", "1", null, "value"));
+        coalescer.discard("evicted", "1");
+
+        coalescer.close();
+
+        Assertions.assertTrue(sent.isEmpty());
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> coalescer.submit(new CacheSetRequest("evicted", "1", null, "value")));
+    }
+
+    @Test
+    void writerOfNewKeyWaitsWhileBufferIsFullTest() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            coalescer.submit(new CacheSetRequest("full", String.valueOf(i), null, "value"));
+        }
+        coalescer.submit(new CacheSetRequest("full", "0", null, "rewritten"));
+        Assertions.assertTrue(sent.isEmpty());
+
+        coalescer.submit(new CacheSetRequest("full", "3", null, "value"));
+        Assertions.assertEquals(1, coalescer.pending());
+
+        coalescer.close();
+
+        Assertions.assertEquals(4, sent.size());
+        Assertions.assertEquals("rewritten", sent.get(0).getValue());
+        Assertions.assertEquals("3", sent.get(3).getSecondaryCacheKey());
+    }
+}
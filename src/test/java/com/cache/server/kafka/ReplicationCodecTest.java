@@ -0,0 +1,119 @@
+package com.cache.server.kafka;
+
+import com.cache.server.dto.CacheEvictRequest;
+import com.cache.server.dto.CacheSetRequest;
+import com.cache.server.service.JsonValue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ReplicationCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void setRequestRoundTripTest() {
+        var request = new CacheSetRequest("ключ", "2", 3600L, Map.of("name", "value"));
+
+        var bytes = new CacheSetRequestSerializer(objectMapper).serialize("topic", request);
+        var restored = new CacheSetRequestDeserializer().deserialize("topic", bytes);
+
+        Assertions.assertEquals("ключ", restored.getPrimaryCacheKey());
+        Assertions.assertEquals("2", restored.getSecondaryCacheKey());
+        Assertions.assertEquals(3600L, restored.getExpired());
+        Assertions.assertEquals("{\"name\":\"value\"}", restored.getValue().toString());
+        Assertions.assertInstanceOf(JsonValue.class, restored.getValue());
+    }
+
+    @Test
+    void encodedValueIsWrittenAsStoredTest() {
+        var value = JsonValue.encode(objectMapper, "x".repeat(10_000)).compress();
+        var request = new CacheSetRequest("1", "2", null, value);
+
+        var bytes = new CacheSetRequestSerializer(objectMapper).serialize("topic", request);
+        var restored = new CacheSetRequestDeserializer().deserialize("topic", bytes);
+
+        Assertions.assertNull(restored.getExpired());
+        Assertions.assertArrayEquals(value.getBytes(), ((JsonValue) restored.getValue()).getBytes());
+    }
+
+    @Test
+    void entriesRoundTripTest() {
+        var entries = List.of(
+                new CacheSetRequest("1", "1", null, 1),
+                new CacheSetRequest("1", "2", 7200L, "two"));
+
+        var restored = ReplicationCodec.decode(ReplicationCodec.encode(objectMapper, entries));
+
+        Assertions.assertEquals(2, restored.size());
+        Assertions.assertEquals("1", restored.get(0).getValue().toString());
+        Assertions.assertEquals("\"two\"", restored.get(1).getValue().toString());
+        Assertions.assertEquals(7200L, restored.get(1).getExpired());
+    }
+
+    @Test
+    void evictionRoundTripTest() {
+        var request = new CacheEvictRequest(List.of(new CacheEvictRequest.Key("1", "2"),
+                new CacheEvictRequest.Key("1", "3", 1_700_000_000_000L)));
+
+        var bytes = new CacheEvictRequestSerializer().serialize("topic", request);
+
+        Assertions.assertEquals(request, new CacheEvictRequestDeserializer().deserialize("topic", bytes));
+    }
+
+    @Test
+    void smallerThanJavaSerializationTest() throws IOException {
+        var request = new CacheSetRequest("users", "42", 3600L, Map.of("name", "value"));
+        var java = new ByteArrayOutputStream();
+        try (var out = new ObjectOutputStream(java)) {
+            out.writeObject(request);
+        }
+
+        var bytes = new CacheSetRequestSerializer(objectMapper).serialize("topic", request);
+
+        Assertions.assertTrue(bytes.length * 4 < java.size(), bytes.length + " bytes, " + java.size() + " serialized");
+    }
+
+    @Test
+    void legacyMessagesAreReadTest() throws IOException {
+        var request = new CacheSetRequest("1", "2", 3600L, new HashMap<>(Map.of("name", "value")));
+        var eviction = new CacheEvictRequest(List.of(new CacheEvictRequest.Key("1", "2")));
+
+        var restored = new CacheSetRequestDeserializer().deserialize("topic", javaSerialized(request));
+
+        Assertions.assertEquals(request, restored);
+        Assertions.assertEquals(eviction, new CacheEvictRequestDeserializer().deserialize("topic", javaSerialized(eviction)));
+    }
+
+    @Test
+    void legacyMessageWithForeignClassIsRejectedTest() throws IOException {
+        var request = new CacheSetRequest("1", "2", null, new File("value"));
+        var bytes = javaSerialized(request);
+
+        Assertions.assertThrows(SerializationException.class, () -> new CacheSetRequestDeserializer().deserialize("topic", bytes));
+    }
+
+    @Test
+    void unknownVersionIsRejectedTest() {
+        var deserializer = new CacheSetRequestDeserializer();
+        Assertions.assertThrows(SerializationException.class, () -> deserializer.deserialize("topic", new byte[]{(byte) 0xac, (byte) 0xed, 0, 5}));
+        Assertions.assertThrows(SerializationException.class, () -> deserializer.deserialize("topic", new byte[]{ReplicationCodec.VERSION, 0, 0, 0, 1, 0}));
+    }
+
+    private static byte[] javaSerialized(Object message) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new ObjectOutputStream(bytes)) {
+            out.writeObject(message);
+        }
+        return bytes.toByteArray();
+    }
+}
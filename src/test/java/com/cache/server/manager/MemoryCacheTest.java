@@ -1,16 +1,26 @@
 package com.cache.server.manager;
 
 import com.cache.server.service.MemoryCache;
+import com.cache.server.service.SpillStore;
+import com.cache.server.service.ValueCodec;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class MemoryCacheTest {
@@ -23,8 +33,6 @@ public class MemoryCacheTest {
         cacheManager = new MemoryCache<>();
         cacheManager.selfCleanerStart(3600, 3600);
         cacheManager.setCapacity(512);
-        cacheManager.setThresholdGC(300);
-        cacheManager.setThresholdPermissionActive(3);
     }
 
     @Test
@@ -46,6 +54,31 @@ public class MemoryCacheTest {
         log.info("Не выполнено {} записей", counter.get());
     }
 
+    @Test
+    @Disabled
+        // только для ручного тестирования: замер занимаемой памяти на одну запись, запуск с -Xmx1g
+    void entryFootprintTest() throws InterruptedException {
+        int entries = 1_000_000;
+        UUID value = UUID.randomUUID();
+        long before = usedHeap();
+        for (int i = 0; i < entries; i++) {
+            // 10 вторичных ключей на первичный, строки первичного ключа каждый раз новые
+            cacheManager.set(String.valueOf(i / 10), String.valueOf(i), value);
+        }
+        Assertions.assertEquals(entries, cacheManager.size());
+        long after = usedHeap();
+        log.info("Занято {} байт на запись без учета значения", (after - before) / entries);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
     @Test
     void getMethodPerformanceTest() throws InterruptedException {
         for (int i = 0; i < 400_000; i++) {
@@ -94,9 +127,99 @@ public class MemoryCacheTest {
     }
 
     @Test
-    void removeTest() {
+    void evictionByWeightTest() {
+        cacheManager.setCapacity(1);
+        for (int i = 0; i < 100_000; i++) {
+            cacheManager.set(String.valueOf(i), String.valueOf(i), UUID.randomUUID());
+        }
+        Assertions.assertTrue(cacheManager.weightedSize() <= 1024 * 1024);
+        Assertions.assertTrue(cacheManager.size() < 100_000);
+        Assertions.assertNotNull(cacheManager.get("99999", "99999"));
+        Assertions.assertNull(cacheManager.get("0", "0"));
+    }
+
+    @Test
+    void evictedValueIsPromotedFromSpillStoreTest(@TempDir Path directory) throws IOException {
+        try (var spillStore = new SpillStore(directory.resolve("cache.spill"), 64 * 1024 * 1024)) {
+            cacheManager.setCapacity(1);
+            cacheManager.setSpillStore(spillStore, new ValueCodec<>() {
+                @Override
+                public byte[] encode(Object value) {
+                    return value.toString().getBytes(StandardCharsets.UTF_8);
+                }
+
+                @Override
+                public Object decode(byte[] bytes) {
+                    return new String(bytes, StandardCharsets.UTF_8);
+                }
+            });
+            for (int i = 0; i < 100_000; i++) {
+                cacheManager.set(String.valueOf(i), String.valueOf(i), "value" + i);
+            }
+            Assertions.assertTrue(cacheManager.weightedSize() <= 1024 * 1024);
+            Assertions.assertTrue(spillStore.size() > 0);
+            Assertions.assertEquals("value0", cacheManager.get("0", "0"));
+            cacheManager.remove("1");
+            Assertions.assertNull(cacheManager.get("1", "1"));
+        }
+    }
+
+    @Test
+    void weightReleasedOnRemoveTest() {
+        cacheManager.set("1", "2", UUID.randomUUID());
         cacheManager.set("1", "2", UUID.randomUUID());
+        cacheManager.set("1", "3", UUID.randomUUID());
+        Assertions.assertTrue(cacheManager.weightedSize() > 0);
         cacheManager.remove("1", "2");
+        cacheManager.remove("1");
+        Assertions.assertEquals(0, cacheManager.weightedSize());
+    }
+
+    @Test
+    void expiredValueIsNotReturnedTest() throws InterruptedException {
+        cacheManager.set("1", "2", UUID.randomUUID(), 1L);
+        Assertions.assertNotNull(cacheManager.get("1", "2"));
+        Thread.sleep(1100);
+        Assertions.assertNull(cacheManager.get("1", "2"));
+        Assertions.assertEquals(0, cacheManager.size());
+        Assertions.assertEquals(0, cacheManager.weightedSize());
+    }
+
+    @Test
+    void concurrentWritesOfPrimaryKeyTest() throws InterruptedException {
+        int threads = 8;
+        int keys = 1_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int offset = t * keys;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < keys; i++) {
+                    cacheManager.set("1", String.valueOf(offset + i), UUID.randomUUID());
+                    cacheManager.set("1", String.valueOf(i), UUID.randomUUID());
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        Assertions.assertEquals(threads * keys, cacheManager.size());
+        cacheManager.remove("1");
+        Assertions.assertEquals(0, cacheManager.size());
+        Assertions.assertEquals(0, cacheManager.weightedSize());
+    }
+
+    @Test
+    void removeTest() {
+        cacheManager.set("1", "2", UUID.randomUUID());
+        Assertions.assertTrue(cacheManager.remove("1", "2"));
+        Assertions.assertFalse(cacheManager.remove("1", "2"));
         int size = cacheManager.size();
         Assertions.assertEquals(0, size);
         cacheManager.set("1", "2", UUID.randomUUID());
@@ -107,4 +230,32 @@ public class MemoryCacheTest {
         Assertions.assertEquals(1, size);
     }
 
+    @Test
+    void putIfAbsentKeepsCurrentValueTest() {
+        Assertions.assertNull(cacheManager.putIfAbsent("1", "2", "first", 60L));
+        Assertions.assertEquals("first", cacheManager.putIfAbsent("1", "2", "second", 60L));
+        Assertions.assertEquals("first", cacheManager.get("1", "2"));
+    }
+
+    @Test
+    void remainingLifeTimeTest() {
+        cacheManager.set("1", "2", UUID.randomUUID(), 120L);
+        long remaining = cacheManager.remainingLifeTime("1", "2");
+        Assertions.assertTrue(remaining > 0 && remaining <= 120, "remaining " + remaining);
+        Assertions.assertEquals(-1L, cacheManager.remainingLifeTime("1", "absent"));
+    }
+
+    @Test
+    void removeIfExpiresByKeepsRewrittenValueTest() {
+        long expired = System.currentTimeMillis() + 60_000L;
+        cacheManager.set("1", "expired", UUID.randomUUID(), 30L);
+        cacheManager.set("1", "rewritten", UUID.randomUUID(), 3600L);
+
+        cacheManager.removeIfExpiresBy("1", "expired", expired);
+        cacheManager.removeIfExpiresBy("1", "rewritten", expired);
+
+        Assertions.assertNull(cacheManager.get("1", "expired"));
+        Assertions.assertNotNull(cacheManager.get("1", "rewritten"));
+    }
+
 }
@@ -0,0 +1,83 @@
+package com.cache.server.manager;
+
+import com.cache.server.service.OffHeapMemoryCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class OffHeapMemoryCacheTest {
+
+    private OffHeapMemoryCache<Object> cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new OffHeapMemoryCache<>(new ObjectMapper(), Object.class);
+        cacheManager.setCapacity(4);
+    }
+
+    @Test
+    void setAndGetTest() {
+        var value = List.of(Map.of("id", 1, "roles", List.of("USER", "ADMIN")), Map.of("id", 2, "active", true));
+        Assertions.assertTrue(cacheManager.set("1", "2", value));
+        Assertions.assertEquals(value, cacheManager.get("1", "2"));
+        Assertions.assertNull(cacheManager.get("1", "3"));
+
+        cacheManager.set("1", "2", "overwritten");
+        Assertions.assertEquals("overwritten", cacheManager.get("1", "2"));
+        Assertions.assertEquals(1, cacheManager.size());
+    }
+
+    @Test
+    void removeTest() {
+        cacheManager.set("1", "2", UUID.randomUUID().toString());
+        cacheManager.remove("1", "2");
+        Assertions.assertEquals(0, cacheManager.size());
+        cacheManager.set("1", "2", UUID.randomUUID().toString());
+        cacheManager.set("1", "3", UUID.randomUUID().toString());
+        cacheManager.set("2", "3", UUID.randomUUID().toString());
+        cacheManager.remove("1");
+        Assertions.assertEquals(1, cacheManager.size());
+        Assertions.assertNotNull(cacheManager.get("2", "3"));
+    }
+
+    @Test
+    void evictionWithinCapacityTest() {
+        String value = "x".repeat(1000);
+        for (int i = 0; i < 20_000; i++) {
+            Assertions.assertTrue(cacheManager.set(String.valueOf(i), String.valueOf(i), value + i));
+        }
+        Assertions.assertTrue(cacheManager.reservedBytes() <= 4 * 1024 * 1024);
+        Assertions.assertTrue(cacheManager.size() < 20_000);
+        Assertions.assertEquals(value + 19_999, cacheManager.get("19999", "19999"));
+        Assertions.assertNull(cacheManager.get("0", "0"));
+    }
+
+    @Test
+    void pagesMoveToNewValueSizeTest() {
+        String small = "x".repeat(1000);
+        for (int i = 0; i < 10_000; i++) {
+            cacheManager.set("small", String.valueOf(i), small);
+        }
+        String large = "y".repeat(100_000);
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertTrue(cacheManager.set("large", String.valueOf(i), large));
+        }
+        Assertions.assertEquals(large, cacheManager.get("large", "99"));
+        Assertions.assertTrue(cacheManager.reservedBytes() <= 4 * 1024 * 1024);
+    }
+
+    @Test
+    void removeExpiredTest() throws InterruptedException {
+        cacheManager.set("1", "1", "value", 1L);
+        cacheManager.set("1", "2", "value", 3600L);
+        Assertions.assertEquals("value", cacheManager.get("1", "1"));
+        Thread.sleep(1100);
+        Assertions.assertNull(cacheManager.get("1", "1"));
+        Assertions.assertEquals(1, cacheManager.size());
+    }
+}
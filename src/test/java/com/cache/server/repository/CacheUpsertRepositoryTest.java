@@ -0,0 +1,74 @@
+package com.cache.server.repository;
+
+import com.cache.server.service.CacheProvider;
+import com.cache.server.service.DataBaseCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@SpringBootTest
+public class CacheUpsertRepositoryTest {
+
+    @Autowired
+    private CacheRepository cacheRepository;
+
+    @Autowired
+    private DataBaseCache dataBaseCache;
+
+    @AfterEach
+    void tearDown() {
+        cacheRepository.deleteAll(cacheRepository.findAll().stream()
+                .filter(o -> o.getPrimaryCacheKey().equals("upsert"))
+                .toList());
+    }
+
+    @Test
+    void upsertReplacesRowOfKeyTest() {
+        cacheRepository.upsert(entity("1", "value1"));
+        cacheRepository.upsert(entity("1", "value2"));
+        Assertions.assertEquals(1, count());
+        Assertions.assertEquals("value2", cacheRepository.findByPrimaryCacheKeyAndSecondaryCacheKey("upsert", "1").getCacheValue());
+    }
+
+    @Test
+    void upsertAllTest() {
+        cacheRepository.upsert(entity("1", "value1"));
+        cacheRepository.upsertAll(List.of(entity("1", "value2"), entity("2", "value3")), 10);
+        Assertions.assertEquals(2, count());
+        Assertions.assertEquals("value2", cacheRepository.findByPrimaryCacheKeyAndSecondaryCacheKey("upsert", "1").getCacheValue());
+        Assertions.assertEquals("value3", cacheRepository.findByPrimaryCacheKeyAndSecondaryCacheKey("upsert", "2").getCacheValue());
+    }
+
+    @Test
+    void setAllWritesLastValueOfRepeatedKeyTest() {
+        dataBaseCache.setAll(List.of(
+                new CacheProvider.Entry<>("upsert", "1", "value1", null),
+                new CacheProvider.Entry<>("upsert", "2", "value2", null),
+                new CacheProvider.Entry<>("upsert", "1", "value3", null)));
+        Assertions.assertEquals(2, count());
+        Assertions.assertEquals("value3", cacheRepository.findByPrimaryCacheKeyAndSecondaryCacheKey("upsert", "1").getCacheValue());
+        Assertions.assertEquals("value2", cacheRepository.findByPrimaryCacheKeyAndSecondaryCacheKey("upsert", "2").getCacheValue());
+    }
+
+    private long count() {
+        return cacheRepository.findAll().stream()
+                .filter(o -> o.getPrimaryCacheKey().equals("upsert"))
+                .count();
+    }
+
+    private static CacheEntity entity(String key2, String value) {
+        var now = LocalDateTime.now();
+        return CacheEntity.builder()
+                .primaryCacheKey("upsert")
+                .secondaryCacheKey(key2)
+                .created(now)
+                .expired(now.plusHours(1))
+                .cacheValue(value)
+                .build();
+    }
+}
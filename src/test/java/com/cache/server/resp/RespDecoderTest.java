@@ -0,0 +1,94 @@
+package com.cache.server.resp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class RespDecoderTest {
+
+    @Test
+    void pipelinedCommandsAreDecodedTogetherTest() {
+        var channel = new EmbeddedChannel(new RespDecoder());
+        channel.writeInbound(buffer("*3\r\n$3\r\nSET\r\n$6\r\nuser:1\r\n$5\r\nvalue\r\n*2\r\n$3\r\nget\r\n$6\r\nuser:1\r\n"));
+
+        RespCommand set = channel.readInbound();
+        RespCommand get = channel.readInbound();
+        Assertions.assertEquals("SET", set.name());
+        Assertions.assertEquals(List.of("user:1", "value"), strings(set));
+        Assertions.assertEquals("GET", get.name());
+        Assertions.assertEquals(List.of("user:1"), strings(get));
+        Assertions.assertNull(channel.readInbound());
+    }
+
+    @Test
+    void splitCommandIsDecodedWhenCompleteTest() {
+        var channel = new EmbeddedChannel(new RespDecoder());
+        channel.writeInbound(buffer("*2\r\n$3\r\nGET\r\n$6\r\nus"));
+        Assertions.assertNull(channel.readInbound());
+
+        channel.writeInbound(buffer("er:1\r\n"));
+        RespCommand get = channel.readInbound();
+        Assertions.assertEquals("GET", get.name());
+        Assertions.assertEquals(List.of("user:1"), strings(get));
+    }
+
+    @Test
+    void commandSplitAcrossManyReadsIsDecodedTest() {
+        var channel = new EmbeddedChannel(new RespDecoder());
+        for (String part : List.of("*3\r", "\n$3\r\nSET\r\n$1", "\r\nk\r\n$5\r\nval", "ue\r", "\n")) {
+            Assertions.assertNull(channel.readInbound());
+            channel.writeInbound(buffer(part));
+        }
+
+        RespCommand set = channel.readInbound();
+        Assertions.assertEquals("SET", set.name());
+        Assertions.assertEquals(List.of("k", "value"), strings(set));
+    }
+
+    @Test
+    void oversizedCommandIsRejectedBeforeItsDataTest() {
+        var channel = new EmbeddedChannel(new RespDecoder(64));
+        channel.writeInbound(buffer("*3\r\n$3\r\nSET\r\n$1\r\nk\r\n"));
+        Assertions.assertNull(channel.readInbound());
+
+        channel.writeInbound(buffer("$1000\r\n"));
+        RespCommand error = channel.readInbound();
+        Assertions.assertTrue(error.isProtocolError());
+    }
+
+    @Test
+    void inlineCommandIsDecodedTest() {
+        var channel = new EmbeddedChannel(new RespDecoder());
+        channel.writeInbound(buffer("\r\nping\r\nmget a:1  a:2\n"));
+
+        RespCommand ping = channel.readInbound();
+        RespCommand mget = channel.readInbound();
+        Assertions.assertEquals("PING", ping.name());
+        Assertions.assertTrue(ping.arguments().isEmpty());
+        Assertions.assertEquals("MGET", mget.name());
+        Assertions.assertEquals(List.of("a:1", "a:2"), strings(mget));
+    }
+
+    @Test
+    void malformedStreamIsReportedOnceTest() {
+        var channel = new EmbeddedChannel(new RespDecoder());
+        channel.writeInbound(buffer("*1\r\n+GET\r\n*1\r\n$4\r\nPING\r\n"));
+
+        RespCommand error = channel.readInbound();
+        Assertions.assertTrue(error.isProtocolError());
+        Assertions.assertNull(channel.readInbound());
+    }
+
+    private static ByteBuf buffer(String text) {
+        return Unpooled.copiedBuffer(text, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> strings(RespCommand command) {
+        return command.arguments().stream().map(bytes -> new String(bytes, StandardCharsets.UTF_8)).toList();
+    }
+}
@@ -0,0 +1,118 @@
+package com.cache.server.service;
+
+import com.cache.server.config.CacheProperties;
+import com.cache.server.repository.CacheEntity;
+import com.cache.server.repository.CacheRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SpringBootTest
+public class DataBaseReadThroughTest {
+
+    @Autowired
+    private CacheRepository cacheRepository;
+
+    private final AtomicInteger lookups = new AtomicInteger();
+    private MemoryCache<Object> memoryCache;
+    private DataBaseReadThrough readThrough;
+
+    @BeforeEach
+    void setUp() {
+        var cacheProperties = new CacheProperties();
+        var dataBaseCache = new DataBaseCache(cacheRepository, cacheProperties, Optional.empty()) {
+            @Override
+            public CacheEntity getEntry(String key1, String key2) {
+                lookups.incrementAndGet();
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getEntry(key1, key2);
+            }
+        };
+        memoryCache = new MemoryCache<>();
+        readThrough = new DataBaseReadThrough(memoryCache, dataBaseCache, cacheProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheRepository.deleteAll(cacheRepository.findAll().stream()
+                .filter(o -> o.getPrimaryCacheKey().startsWith("read-through"))
+                .toList());
+    }
+
+    @Test
+    void concurrentMissesShareOneLookupTest() {
+        var now = LocalDateTime.now();
+        cacheRepository.upsert(CacheEntity.builder()
+                .primaryCacheKey("read-through")
+                .secondaryCacheKey("hot")
+                .created(now)
+                .expired(now.plusHours(1))
+                .cacheValue("value")
+                .build());
+
+        var values = Flux.range(0, 20)
+                .flatMap(i -> readThrough.load("read-through", "hot"))
+                .collectList()
+                .block();
+
+        Assertions.assertEquals(20, values.size());
+        Assertions.assertTrue(values.stream().allMatch("value"::equals));
+        Assertions.assertEquals(1, lookups.get());
+        Assertions.assertEquals(0, readThrough.inFlight());
+        Assertions.assertEquals("value", memoryCache.get("read-through", "hot"));
+    }
+
+    @Test
+    void missingKeyIsEmptyTest() {
+        Assertions.assertNull(readThrough.load("read-through", "missing").block());
+        Assertions.assertNull(memoryCache.get("read-through", "missing"));
+    }
+
+    @Test
+    void removalDuringLookupIsNotUndoneTest() {
+        var now = LocalDateTime.now();
+        cacheRepository.upsert(CacheEntity.builder()
+                .primaryCacheKey("read-through")
+                .secondaryCacheKey("removed")
+                .created(now)
+                .expired(now.plusHours(1))
+                .cacheValue("value")
+                .build());
+
+        var lookup = readThrough.load("read-through", "removed").toFuture();
+        readThrough.invalidate("read-through", "removed");
+        memoryCache.remove("read-through", "removed");
+
+        Assertions.assertNull(lookup.join());
+        Assertions.assertNull(memoryCache.get("read-through", "removed"));
+    }
+
+    @Test
+    void cancelledRequestDoesNotCancelLookupTest() {
+        var now = LocalDateTime.now();
+        cacheRepository.upsert(CacheEntity.builder()
+                .primaryCacheKey("read-through")
+                .secondaryCacheKey("cancelled")
+                .created(now)
+                .expired(now.plusHours(1))
+                .cacheValue("value")
+                .build());
+
+        readThrough.load("read-through", "cancelled").subscribe().dispose();
+
+        Assertions.assertEquals("value", readThrough.load("read-through", "cancelled").block());
+        Assertions.assertEquals(1, lookups.get());
+    }
+}
@@ -0,0 +1,90 @@
+package com.cache.server.service;
+
+import com.cache.server.config.CacheProperties;
+import com.cache.server.repository.CacheEntity;
+import com.cache.server.repository.CacheRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+
+@SpringBootTest
+public class DataBaseWriteBehindTest {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CacheRepository cacheRepository;
+
+    private DataBaseWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        var cacheProperties = new CacheProperties();
+        cacheProperties.getDb().getWriteBehind().setBatchSize(10);
+        cacheProperties.getDb().getWriteBehind().setFlushInterval(3_600_000L);
+        writeBehind = new DataBaseWriteBehind(cacheRepository, transactionManager, cacheProperties);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writeBehind.close();
+        cacheRepository.deleteAll(cacheRepository.findAll().stream()
+                .filter(o -> o.getPrimaryCacheKey().startsWith("write-behind"))
+                .toList());
+    }
+
+    @Test
+    void repeatedWritesAreCoalescedTest() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            writeBehind.submit(entity("write-behind", "coalesced", "value" + i));
+        }
+        Assertions.assertEquals("value4", writeBehind.pending("write-behind", "coalesced"));
+        writeBehind.close();
+        Assertions.assertNull(writeBehind.pending("write-behind", "coalesced"));
+        var saved = cacheRepository.findByPrimaryCacheKeyAndSecondaryCacheKey("write-behind", "coalesced");
+        Assertions.assertEquals("value4", saved.getCacheValue());
+        Assertions.assertEquals(1, cacheRepository.findAll().stream()
+                .filter(o -> o.getSecondaryCacheKey().equals("coalesced"))
+                .count());
+    }
+
+    @Test
+    void batchIsFlushedWhenFullTest() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            writeBehind.submit(entity("write-behind-batch", String.valueOf(i), "value" + i));
+        }
+        for (int i = 0; i < 50 && writeBehind.pending("write-behind-batch", "9") != null; i++) {
+            Thread.sleep(100);
+        }
+        Assertions.assertNull(writeBehind.pending("write-behind-batch", "9"));
+        Assertions.assertEquals("value9", cacheRepository
+                .findByPrimaryCacheKeyAndSecondaryCacheKey("write-behind-batch", "9").getCacheValue());
+    }
+
+    @Test
+    void discardedWriteIsNotFlushedTest() throws InterruptedException {
+        writeBehind.submit(entity("write-behind-discard", "1", "value"));
+        writeBehind.discard("write-behind-discard", null);
+        writeBehind.close();
+        Assertions.assertNull(cacheRepository
+                .findByPrimaryCacheKeyAndSecondaryCacheKey("write-behind-discard", "1"));
+    }
+
+    private static CacheEntity entity(String key1, String key2, String value) {
+        var now = LocalDateTime.now();
+        return CacheEntity.builder()
+                .primaryCacheKey(key1)
+                .secondaryCacheKey(key2)
+                .created(now)
+                .expired(now.plusHours(1))
+                .cacheValue(value)
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.cache.server.service;
+
+import com.cache.server.config.CacheProperties;
+import com.cache.server.dto.CacheBulkResponse;
+import com.cache.server.dto.CacheMultiSetRequest;
+import com.cache.server.dto.CacheSetRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DefaultCacheManagerTest {
+
+    private static final int BATCH_SIZE = 10;
+
+    private final AtomicInteger produced = new AtomicInteger();
+    private final List<Integer> producedWhenStored = new ArrayList<>();
+    private final List<Integer> replicatedBatches = new ArrayList<>();
+    private DefaultCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        var cacheProperties = new CacheProperties();
+        cacheProperties.getBulk().setBatchSize(BATCH_SIZE);
+        var cacheService = new CacheService<Object>() {
+            @Override
+            public Mono<Void> set(String key1, String key2, Object value) {
+                return Mono.empty();
+            }
+
+            @Override
+            public Mono<Void> set(String key1, String key2, Long expired, Object value) {
+                return Mono.empty();
+            }
+
+            @Override
+            public Mono<Object> get(String key1, String key2) {
+                return Mono.empty();
+            }
+
+            @Override
+            public long remainingLifeTime(String key1, String key2) {
+                return -1L;
+            }
+
+            @Override
+            public Mono<Void> setAll(List<CacheProvider.Entry<Object>> entries) {
+                return Mono.fromRunnable(() -> producedWhenStored.add(produced.get()));
+            }
+
+            @Override
+            public Mono<List<Object>> getAll(List<Key> keys) {
+                return Mono.just(List.of());
+            }
+
+            @Override
+            public Mono<Boolean> remove(String key1, String key2) {
+                return Mono.just(false);
+            }
+
+            @Override
+            public void evict(String key1, String key2) {
+            }
+
+            @Override
+            public void evict(String key1, String key2, long expiresBy) {
+            }
+        };
+        var cacheSynchronization = new CacheSynchronization(null, Optional.empty()) {
+            @Override
+            public void writeReplicas(CacheMultiSetRequest request) {
+                replicatedBatches.add(request.getEntries().size());
+            }
+        };
+        cacheManager = new DefaultCacheManager(cacheService, cacheSynchronization, cacheProperties);
+    }
+
+    @Test
+    void bulkIsAcknowledgedPerBatchTest() {
+        var requests = Flux.range(0, 25)
+                .map(i -> new CacheSetRequest("bulk", String.valueOf(i), null, "value" + i))
+                .doOnNext(request -> produced.incrementAndGet());
+
+        var acks = cacheManager.setAllAndSynchronization(requests).collectList().block();
+
+        Assertions.assertEquals(3, acks.size());
+        Assertions.assertEquals(new CacheBulkResponse(0, 10, 10), acks.get(0));
+        Assertions.assertEquals(new CacheBulkResponse(2, 5, 25), acks.get(2));
+        Assertions.assertEquals(List.of(10, 10, 5), replicatedBatches);
+    }
+
+    @Test
+    void bulkIsReadAsBatchesAreStoredTest() {
+        var requests = Flux.range(0, 1000)
+                .map(i -> new CacheSetRequest("bulk", String.valueOf(i), null, "value" + i))
+                .doOnNext(request -> produced.incrementAndGet());
+
+        cacheManager.setAllAndSynchronization(requests).blockLast();
+
+        Assertions.assertEquals(100, producedWhenStored.size());
+        for (int i = 0; i < producedWhenStored.size(); i++) {
+            Assertions.assertTrue(producedWhenStored.get(i) <= (i + 2) * BATCH_SIZE,
+                    "batch " + i + " stored after " + producedWhenStored.get(i) + " requests were read");
+        }
+    }
+}
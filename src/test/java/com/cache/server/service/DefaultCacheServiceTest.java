@@ -0,0 +1,62 @@
+package com.cache.server.service;
+
+import com.cache.server.config.CacheProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+public class DefaultCacheServiceTest {
+
+    private final List<List<CacheProvider.Entry<String>>> batches = new ArrayList<>();
+    private DefaultCacheService cacheService;
+
+    @BeforeEach
+    void setUp() {
+        var cacheProperties = new CacheProperties();
+        var dataBaseCache = new DataBaseCache(null, cacheProperties, Optional.empty()) {
+            @Override
+            public void setAll(List<Entry<String>> entries) {
+                batches.add(entries);
+            }
+        };
+        var memoryCache = new MemoryCache<Object>();
+        memoryCache.setCapacity(16);
+        cacheService = new DefaultCacheService(memoryCache, dataBaseCache, cacheProperties, new ObjectMapper(),
+                Optional.empty(), Optional.empty(), Optional.empty());
+    }
+
+    @Test
+    void setAllIsPersistedAsOneBatchTest() {
+        var entries = new ArrayList<CacheProvider.Entry<Object>>();
+        for (int i = 0; i < 100; i++) {
+            entries.add(new CacheProvider.Entry<>("batch", String.valueOf(i), "value" + i, i % 2 == 0 ? null : 3600L));
+        }
+        cacheService.setAll(entries).block();
+
+        Assertions.assertEquals(1, batches.size());
+        Assertions.assertEquals(100, batches.get(0).size());
+        Assertions.assertEquals("value99", batches.get(0).get(99).value());
+        Assertions.assertEquals(3600L, batches.get(0).get(99).lifeTime());
+        Assertions.assertEquals("value42", cacheService.get("batch", "42").block());
+    }
+
+    @Test
+    void getAllKeepsTheOrderOfTheKeysTest() {
+        cacheService.setAll(List.of(
+                new CacheProvider.Entry<>("batch", "1", "value1", null),
+                new CacheProvider.Entry<>("batch", "3", "value3", null))).block();
+
+        var values = cacheService.getAll(List.of(
+                new CacheService.Key("batch", "1"),
+                new CacheService.Key("batch", "2"),
+                new CacheService.Key("batch", "3"))).block();
+
+        Assertions.assertEquals(Arrays.asList("value1", null, "value3"), values);
+    }
+}
@@ -0,0 +1,57 @@
+package com.cache.server.service;
+
+import com.cache.server.config.CacheProperties;
+import com.cache.server.repository.CacheEntity;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NegativeCacheTest {
+
+    private final AtomicInteger lookups = new AtomicInteger();
+    private DefaultCacheService cacheService;
+
+    @BeforeEach
+    void setUp() {
+        var cacheProperties = new CacheProperties();
+        var dataBaseCache = new DataBaseCache(null, cacheProperties, Optional.empty()) {
+            @Override
+            public boolean set(String key1, String key2, String value, Long lifeTime) {
+                return true;
+            }
+
+            @Override
+            public CacheEntity getEntry(String key1, String key2) {
+                lookups.incrementAndGet();
+                return null;
+            }
+        };
+        var memoryCache = new MemoryCache<Object>();
+        memoryCache.setCapacity(16);
+        var readThrough = new DataBaseReadThrough(memoryCache, dataBaseCache, cacheProperties);
+        cacheService = new DefaultCacheService(memoryCache, dataBaseCache, cacheProperties, new ObjectMapper(),
+                Optional.empty(), Optional.of(readThrough), Optional.of(new NegativeCache(cacheProperties)));
+    }
+
+    @Test
+    void missingKeyIsLookedUpOnceTest() {
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertNull(cacheService.get("negative", "missing").block());
+        }
+        Assertions.assertEquals(1, lookups.get());
+    }
+
+    @Test
+    void writtenKeyIsNoLongerMissingTest() {
+        Assertions.assertNull(cacheService.get("negative", "written").block());
+        cacheService.set("negative", "written", "value").block();
+        Assertions.assertEquals("value", cacheService.get("negative", "written").block());
+        cacheService.evict("negative", "written");
+        Assertions.assertNull(cacheService.get("negative", "written").block());
+        Assertions.assertEquals(2, lookups.get());
+    }
+}
@@ -0,0 +1,103 @@
+package com.cache.server.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class TimerWheelTest {
+
+    private static final long START = System.nanoTime();
+
+    @Test
+    void expiresOnlyDueEntriesTest() {
+        TimerWheel timerWheel = new TimerWheel(START);
+        TestTimer second = new TestTimer(START + TimeUnit.SECONDS.toNanos(2));
+        TestTimer minute = new TestTimer(START + TimeUnit.MINUTES.toNanos(5));
+        TestTimer day = new TestTimer(START + TimeUnit.DAYS.toNanos(3));
+        TestTimer month = new TestTimer(START + TimeUnit.DAYS.toNanos(30));
+        List.of(second, minute, day, month).forEach(timerWheel::schedule);
+
+        List<TimerWheel.Timer> expired = new ArrayList<>();
+        timerWheel.advance(START + TimeUnit.SECONDS.toNanos(4), expired::add);
+        Assertions.assertEquals(List.of(second), expired);
+
+        timerWheel.advance(START + TimeUnit.MINUTES.toNanos(6), expired::add);
+        Assertions.assertEquals(List.of(second, minute), expired);
+
+        timerWheel.advance(START + TimeUnit.DAYS.toNanos(2), expired::add);
+        Assertions.assertEquals(List.of(second, minute), expired);
+
+        timerWheel.advance(START + TimeUnit.DAYS.toNanos(4), expired::add);
+        Assertions.assertEquals(List.of(second, minute, day), expired);
+
+        for (int days = 5; days <= 31; days++) {
+            timerWheel.advance(START + TimeUnit.DAYS.toNanos(days), expired::add);
+        }
+        Assertions.assertEquals(List.of(second, minute, day, month), expired);
+    }
+
+    @Test
+    void expiresCloseToDeadlineTest() {
+        TimerWheel timerWheel = new TimerWheel(START);
+        TestTimer timer = new TestTimer(START + TimeUnit.MINUTES.toNanos(90));
+        timerWheel.schedule(timer);
+        List<TimerWheel.Timer> expired = new ArrayList<>();
+        long now = START;
+        while (expired.isEmpty()) {
+            now += TimeUnit.SECONDS.toNanos(1);
+            timerWheel.advance(now, expired::add);
+        }
+        long lateness = now - timer.getExpirationTime();
+        Assertions.assertTrue(lateness >= 0 && lateness < TimeUnit.SECONDS.toNanos(3), "lateness " + lateness);
+    }
+
+    @Test
+    void descheduleTest() {
+        TimerWheel timerWheel = new TimerWheel(START);
+        TestTimer timer = new TestTimer(START + TimeUnit.SECONDS.toNanos(1));
+        timerWheel.schedule(timer);
+        timerWheel.deschedule(timer);
+        timerWheel.deschedule(timer);
+        List<TimerWheel.Timer> expired = new ArrayList<>();
+        timerWheel.advance(START + TimeUnit.SECONDS.toNanos(10), expired::add);
+        Assertions.assertTrue(expired.isEmpty());
+    }
+
+    private static class TestTimer implements TimerWheel.Timer {
+        private final long expirationTime;
+        private TimerWheel.Timer previous;
+        private TimerWheel.Timer next;
+
+        TestTimer(long expirationTime) {
+            this.expirationTime = expirationTime;
+        }
+
+        @Override
+        public long getExpirationTime() {
+            return expirationTime;
+        }
+
+        @Override
+        public TimerWheel.Timer getPreviousInTimerOrder() {
+            return previous;
+        }
+
+        @Override
+        public void setPreviousInTimerOrder(TimerWheel.Timer timer) {
+            previous = timer;
+        }
+
+        @Override
+        public TimerWheel.Timer getNextInTimerOrder() {
+            return next;
+        }
+
+        @Override
+        public void setNextInTimerOrder(TimerWheel.Timer timer) {
+            next = timer;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.cache.server.service.eviction;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class EvictionPolicyTest {
+
+    private static final int MAXIMUM = 100;
+
+    @Test
+    void lruEvictsLeastRecentlyUsedTest() {
+        Simulation simulation = new Simulation(new LruEvictionPolicy());
+        for (int i = 0; i < MAXIMUM; i++) {
+            simulation.access(i);
+        }
+        simulation.access(0);
+        simulation.access(MAXIMUM);
+        Assertions.assertTrue(simulation.contains(0));
+        Assertions.assertFalse(simulation.contains(1));
+        Assertions.assertEquals(MAXIMUM, simulation.size());
+    }
+
+    @Test
+    void tinyLfuResistsScanTest() {
+        Simulation lru = new Simulation(new LruEvictionPolicy());
+        Simulation tinyLfu = new Simulation(new WindowTinyLfuEvictionPolicy());
+        for (Simulation simulation : new Simulation[]{lru, tinyLfu}) {
+            int scanKey = 1_000;
+            for (int round = 0; round < 200; round++) {
+                for (int hot = 0; hot < 50; hot++) {
+                    simulation.access(hot);
+                }
+                for (int i = 0; i < 100; i++) {
+                    simulation.access(scanKey++);
+                }
+            }
+            Assertions.assertEquals(MAXIMUM, simulation.size());
+        }
+        Assertions.assertTrue(tinyLfu.hitRatio() > 0.3, "tinyLfu hit ratio " + tinyLfu.hitRatio());
+        Assertions.assertTrue(tinyLfu.hitRatio() > lru.hitRatio() * 2,
+                "tinyLfu " + tinyLfu.hitRatio() + " lru " + lru.hitRatio());
+    }
+
+    @Test
+    void tinyLfuSkewedWorkloadTest() {
+        Simulation lru = new Simulation(new LruEvictionPolicy());
+        Simulation tinyLfu = new Simulation(new WindowTinyLfuEvictionPolicy());
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            // approximately Zipf-distributed keys over 10 000 distinct values
+            int key = (int) Math.floor(Math.pow(10_000, random.nextDouble()));
+            lru.access(key);
+            tinyLfu.access(key);
+        }
+        Assertions.assertTrue(tinyLfu.hitRatio() > lru.hitRatio(),
+                "tinyLfu " + tinyLfu.hitRatio() + " lru " + lru.hitRatio());
+    }
+
+    @Test
+    void tinyLfuFiltersAdmissionWhileProtectedIsEmptyTest() {
+        Simulation tinyLfu = new Simulation(new WindowTinyLfuEvictionPolicy());
+        for (int i = 0; i < MAXIMUM; i++) {
+            tinyLfu.access(i);
+        }
+        for (int i = 0; i < 50; i++) {
+            tinyLfu.access(1_000 + i);
+        }
+        for (int i = 0; i < MAXIMUM - 1; i++) {
+            Assertions.assertTrue(tinyLfu.contains(i), "resident " + i + " was evicted by a new entry");
+        }
+        Assertions.assertEquals(MAXIMUM, tinyLfu.size());
+    }
+
+    @Test
+    void removeUntrackedNodeTest() {
+        EvictionPolicy policy = new WindowTinyLfuEvictionPolicy();
+        policy.setMaximum(MAXIMUM);
+        TestNode node = new TestNode(1);
+        policy.onRemove(node);
+        policy.onAccess(node);
+        Assertions.assertNull(policy.victim());
+        policy.onInsert(node);
+        Assertions.assertSame(node, policy.victim());
+        policy.onRemove(node);
+        Assertions.assertFalse(node.isLinked());
+        Assertions.assertNull(policy.victim());
+    }
+
+    private static class Simulation {
+        private final EvictionPolicy policy;
+        private final Map<Integer, TestNode> data = new HashMap<>();
+        private long hits;
+        private long requests;
+
+        Simulation(EvictionPolicy policy) {
+            this.policy = policy;
+            policy.setMaximum(MAXIMUM);
+        }
+
+        void access(int key) {
+            requests++;
+            TestNode node = data.get(key);
+            if (node != null) {
+                hits++;
+                policy.onAccess(node);
+                return;
+            }
+            node = new TestNode(key);
+            data.put(key, node);
+            policy.onInsert(node);
+            while (data.size() > MAXIMUM) {
+                TestNode victim = (TestNode) policy.victim();
+                policy.onRemove(victim);
+                data.remove(victim.key);
+            }
+        }
+
+        boolean contains(int key) {
+            return data.containsKey(key);
+        }
+
+        int size() {
+            return data.size();
+        }
+
+        double hitRatio() {
+            return (double) hits / requests;
+        }
+    }
+
+    private static class TestNode extends Node {
+        private final int key;
+
+        TestNode(int key) {
+            this.key = key;
+        }
+
+        @Override
+        public int getWeight() {
+            return 1;
+        }
+
+        @Override
+        public int keyHash() {
+            return Integer.hashCode(key);
+        }
+    }
+}
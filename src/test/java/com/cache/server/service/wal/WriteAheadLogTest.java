@@ -0,0 +1,104 @@
+package com.cache.server.service.wal;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+public class WriteAheadLogTest {
+
+    private static final long FAR = System.currentTimeMillis() + 3_600_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replayAfterReopenTest() throws IOException {
+        try (var wal = new WriteAheadLog(directory, 1024 * 1024, 4)) {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                futures.add(wal.append(entry(String.valueOf(i % 10), "value" + i, FAR)));
+            }
+            futures.forEach(CompletableFuture::join);
+        }
+        Map<String, String> state = replay();
+        Assertions.assertEquals(10, state.size());
+        Assertions.assertEquals("value999", state.get("9"));
+    }
+
+    @Test
+    void compactionKeepsLatestEntriesTest() throws IOException, InterruptedException {
+        try (var wal = new WriteAheadLog(directory, 512, 2)) {
+            for (int i = 0; i < 500; i++) {
+                wal.append(entry(String.valueOf(i % 20), "value" + i, FAR)).join();
+            }
+            wal.append(entry("expired", "value", 1L)).join();
+            Thread.sleep(500);
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            Assertions.assertTrue(files.count() < 10);
+        }
+        Map<String, String> state = replay();
+        Assertions.assertEquals(20, state.size());
+        Assertions.assertEquals("value499", state.get("19"));
+        Assertions.assertFalse(state.containsKey("expired"));
+    }
+
+    @Test
+    void tornRecordIsSkippedTest() throws IOException {
+        try (var wal = new WriteAheadLog(directory, 1024 * 1024, 4)) {
+            wal.append(entry("1", "value1", FAR)).join();
+            wal.append(entry("2", "value2", FAR)).join();
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(file -> file.toFile().length() > 0).findFirst().orElseThrow();
+        }
+        try (var channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        Map<String, String> state = replay();
+        Assertions.assertEquals(Map.of("1", "value1"), state);
+    }
+
+    @Test
+    void tooLongKeyIsRejectedTest() throws IOException {
+        try (var wal = new WriteAheadLog(directory, 1024 * 1024, 4)) {
+            var rejected = wal.append(entry("k".repeat(70_000), "value", FAR));
+            Assertions.assertThrows(CompletionException.class, rejected::join);
+            wal.append(entry("1", "value1", FAR)).join();
+        }
+        Assertions.assertEquals(Map.of("1", "value1"), replay());
+    }
+
+    private Map<String, String> replay() throws IOException {
+        Map<String, String> state = new HashMap<>();
+        try (var wal = new WriteAheadLog(directory, 1024 * 1024, 4)) {
+            wal.replay(entry -> {
+                if (entry.isExpired(System.currentTimeMillis())) {
+                    state.remove(entry.key1());
+                } else {
+                    state.put(entry.key1(), new String(entry.value(), StandardCharsets.UTF_8));
+                }
+            });
+        }
+        return state;
+    }
+
+    private static WriteAheadLog.Entry entry(String key1, String value, long expiresAt) {
+        return new WriteAheadLog.Entry(key1, "key2", value.getBytes(StandardCharsets.UTF_8), expiresAt);
+    }
+}